@@ -25,4 +25,5 @@ public interface PermittableGroupIds {
   String INSTANCE_MANAGEMENT = "deposit__v1__instance";
   String TXN_MANAGEMENT = "deposit__v1__transaction";
   String COLLECTION_MANAGEMENT = "deposit__v1__collection";
+  String BEAT_JOB_MANAGEMENT = "deposit__v1__beatjob";
 }
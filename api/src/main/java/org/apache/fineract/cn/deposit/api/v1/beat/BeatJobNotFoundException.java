@@ -16,20 +16,7 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-package org.apache.fineract.cn.deposit.service.internal.command;
+package org.apache.fineract.cn.deposit.api.v1.beat;
 
-import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
-
-public class BeatListenerCommand {
-
-  private final BeatPublish beatPublish;
-
-  public BeatListenerCommand(final BeatPublish beatPublish) {
-    super();
-    this.beatPublish = beatPublish;
-  }
-
-  public BeatPublish beatPublish() {
-    return this.beatPublish;
-  }
+public class BeatJobNotFoundException extends RuntimeException {
 }
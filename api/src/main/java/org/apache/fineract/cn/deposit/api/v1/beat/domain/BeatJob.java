@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.api.v1.beat.domain;
+
+public class BeatJob {
+
+  public enum State {
+    PENDING,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  public enum Stage {
+    INTEREST_BEARING_BALANCE,
+    ACCRUAL,
+    PAYOUT
+  }
+
+  private String identifier;
+  private String dueDate;
+  private String state;
+  private String stage;
+  private Long processedItems;
+  private Long totalItems;
+  private Double itemsPerSecond;
+  private String estimatedCompletion;
+  private String createdOn;
+  private String stageStartedOn;
+  private String completedOn;
+  private String errorMessage;
+
+  public BeatJob() {
+    super();
+  }
+
+  public String getIdentifier() {
+    return this.identifier;
+  }
+
+  public void setIdentifier(final String identifier) {
+    this.identifier = identifier;
+  }
+
+  public String getDueDate() {
+    return this.dueDate;
+  }
+
+  public void setDueDate(final String dueDate) {
+    this.dueDate = dueDate;
+  }
+
+  public String getState() {
+    return this.state;
+  }
+
+  public void setState(final String state) {
+    this.state = state;
+  }
+
+  public String getStage() {
+    return this.stage;
+  }
+
+  public void setStage(final String stage) {
+    this.stage = stage;
+  }
+
+  public Long getProcessedItems() {
+    return this.processedItems;
+  }
+
+  public void setProcessedItems(final Long processedItems) {
+    this.processedItems = processedItems;
+  }
+
+  public Long getTotalItems() {
+    return this.totalItems;
+  }
+
+  public void setTotalItems(final Long totalItems) {
+    this.totalItems = totalItems;
+  }
+
+  public Double getItemsPerSecond() {
+    return this.itemsPerSecond;
+  }
+
+  public void setItemsPerSecond(final Double itemsPerSecond) {
+    this.itemsPerSecond = itemsPerSecond;
+  }
+
+  public String getEstimatedCompletion() {
+    return this.estimatedCompletion;
+  }
+
+  public void setEstimatedCompletion(final String estimatedCompletion) {
+    this.estimatedCompletion = estimatedCompletion;
+  }
+
+  public String getCreatedOn() {
+    return this.createdOn;
+  }
+
+  public void setCreatedOn(final String createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public String getStageStartedOn() {
+    return this.stageStartedOn;
+  }
+
+  public void setStageStartedOn(final String stageStartedOn) {
+    this.stageStartedOn = stageStartedOn;
+  }
+
+  public String getCompletedOn() {
+    return this.completedOn;
+  }
+
+  public void setCompletedOn(final String completedOn) {
+    this.completedOn = completedOn;
+  }
+
+  public String getErrorMessage() {
+    return this.errorMessage;
+  }
+
+  public void setErrorMessage(final String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.fineract.cn.deposit.api.v1.client;
 
+import org.apache.fineract.cn.deposit.api.v1.beat.BeatJobNotFoundException;
+import org.apache.fineract.cn.deposit.api.v1.beat.domain.BeatJob;
 import org.apache.fineract.cn.deposit.api.v1.definition.ActionAlreadyExistsException;
 import org.apache.fineract.cn.deposit.api.v1.definition.ProductDefinitionAlreadyExistsException;
 import org.apache.fineract.cn.deposit.api.v1.definition.ProductDefinitionNotFoundException;
@@ -26,10 +28,12 @@ import org.apache.fineract.cn.deposit.api.v1.definition.domain.Action;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.DividendDistribution;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionCommand;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionPage;
 import org.apache.fineract.cn.deposit.api.v1.instance.ProductInstanceNotFoundException;
 import org.apache.fineract.cn.deposit.api.v1.instance.ProductInstanceValidationException;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.AvailableTransactionType;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstancePage;
 import java.util.List;
 import java.util.Set;
 import javax.validation.Valid;
@@ -88,6 +92,17 @@ public interface DepositAccountManager {
   )
   List<ProductDefinition> fetchProductDefinitions();
 
+  @RequestMapping(
+      value = "/definitions",
+      method = RequestMethod.GET,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.ALL_VALUE
+  )
+  ProductDefinitionPage fetchProductDefinitionPage(@RequestParam(value = "pageSize") final Integer pageSize,
+                                                   @RequestParam(value = "sortColumn", required = false) final String sortColumn,
+                                                   @RequestParam(value = "sortDirection", required = false) final String sortDirection,
+                                                   @RequestParam(value = "continuationToken", required = false) final String continuationToken);
+
   @RequestMapping(
       value = "/definitions/{identifier}",
       method = RequestMethod.GET,
@@ -104,6 +119,18 @@ public interface DepositAccountManager {
   )
   List<ProductInstance> findProductInstances(@PathVariable("identifier") final String Identifier);
 
+  @RequestMapping(
+      value = "/definitions/{identifier}/instances",
+      method = RequestMethod.GET,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.ALL_VALUE
+  )
+  ProductInstancePage findProductInstancePage(@PathVariable("identifier") final String identifier,
+                                              @RequestParam(value = "pageSize") final Integer pageSize,
+                                              @RequestParam(value = "sortColumn", required = false) final String sortColumn,
+                                              @RequestParam(value = "sortDirection", required = false) final String sortDirection,
+                                              @RequestParam(value = "continuationToken", required = false) final String continuationToken);
+
   @RequestMapping(
       value = "/definitions/{identifier}/commands",
       method = RequestMethod.POST,
@@ -137,6 +164,18 @@ public interface DepositAccountManager {
   )
   List<ProductInstance> fetchProductInstances(@RequestParam(value = "customer", required = true) final String customer);
 
+  @RequestMapping(
+      value = "/instances",
+      method = RequestMethod.GET,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.ALL_VALUE
+  )
+  ProductInstancePage fetchProductInstancePage(@RequestParam(value = "customer") final String customer,
+                                               @RequestParam(value = "pageSize") final Integer pageSize,
+                                               @RequestParam(value = "sortColumn", required = false) final String sortColumn,
+                                               @RequestParam(value = "sortDirection", required = false) final String sortDirection,
+                                               @RequestParam(value = "continuationToken", required = false) final String continuationToken);
+
   @RequestMapping(
       value = "/instances/transactiontypes",
       method = RequestMethod.GET,
@@ -229,4 +268,15 @@ public interface DepositAccountManager {
       @ThrowsException(status = HttpStatus.NOT_FOUND, exception = ProductDefinitionNotFoundException.class),
   })
   List<DividendDistribution> fetchDividendDistributions(@PathVariable("identifier") final String identifier);
+
+  @RequestMapping(
+      value = "/beatlistener/jobs/{identifier}",
+      method = RequestMethod.GET,
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.ALL_VALUE
+  )
+  @ThrowsExceptions({
+      @ThrowsException(status = HttpStatus.NOT_FOUND, exception = BeatJobNotFoundException.class)
+  })
+  BeatJob findBeatJob(@PathVariable("identifier") final String identifier);
 }
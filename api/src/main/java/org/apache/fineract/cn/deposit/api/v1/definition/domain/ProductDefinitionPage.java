@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.api.v1.definition.domain;
+
+import java.util.List;
+
+/**
+ * One page of a keyset paged listing. Pass the continuation token with the same page size and sort to get the next
+ * page; it is null on the last page.
+ */
+public class ProductDefinitionPage {
+
+  private List<ProductDefinition> productDefinitions;
+  private String continuationToken;
+
+  public ProductDefinitionPage() {
+    super();
+  }
+
+  public List<ProductDefinition> getProductDefinitions() {
+    return this.productDefinitions;
+  }
+
+  public void setProductDefinitions(final List<ProductDefinition> productDefinitions) {
+    this.productDefinitions = productDefinitions;
+  }
+
+  public String getContinuationToken() {
+    return this.continuationToken;
+  }
+
+  public void setContinuationToken(final String continuationToken) {
+    this.continuationToken = continuationToken;
+  }
+}
@@ -20,5 +20,6 @@ package org.apache.fineract.cn.deposit.api.v1.transaction.domain.data;
 
 public enum ActionState {
         ACCEPTED,
-        REJECTED
+        REJECTED,
+        UNKNOWN
 }
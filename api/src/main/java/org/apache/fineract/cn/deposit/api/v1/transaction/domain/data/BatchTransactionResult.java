@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.api.v1.transaction.domain.data;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Outcome of one item of a batch transaction request. Items are reported in request order; a rejected item carries
+ * the reason and no transaction code. An item whose outcome is unknown carries both: its transaction may or may not
+ * have been booked in the ledger, and must be checked by transaction code before it is submitted again.
+ */
+public class BatchTransactionResult {
+
+    private int index;
+    private ActionState state;
+    private String transactionCode;
+    private String routingCode;
+    private String externalId;
+    private String requestCode;
+    private String completedTimestamp;
+    private String errorMessage;
+
+    public BatchTransactionResult() {
+        super();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public ActionState getState() {
+        return state;
+    }
+
+    public void setState(ActionState state) {
+        this.state = state;
+    }
+
+    public String getTransactionCode() {
+        return transactionCode;
+    }
+
+    public void setTransactionCode(String transactionCode) {
+        this.transactionCode = transactionCode;
+    }
+
+    public String getRoutingCode() {
+        return routingCode;
+    }
+
+    public void setRoutingCode(String routingCode) {
+        this.routingCode = routingCode;
+    }
+
+    public String getExternalId() {
+        return externalId;
+    }
+
+    public void setExternalId(String externalId) {
+        this.externalId = externalId;
+    }
+
+    public String getRequestCode() {
+        return requestCode;
+    }
+
+    public void setRequestCode(String requestCode) {
+        this.requestCode = requestCode;
+    }
+
+    public String getCompletedTimestamp() {
+        return completedTimestamp;
+    }
+
+    public void setCompletedTimestamp(String completedTimestamp) {
+        this.completedTimestamp = completedTimestamp;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+
+    public void setErrorMessage(String errorMessage) {
+        this.errorMessage = errorMessage;
+    }
+
+    public static BatchTransactionResult accepted(int index, TransactionRequestData request, String transactionCode,
+                                                  LocalDateTime completedTimestamp) {
+        BatchTransactionResult result = of(index, request, ActionState.ACCEPTED);
+        result.setTransactionCode(transactionCode);
+        result.setCompletedTimestamp(completedTimestamp.format(DateTimeFormatter.ISO_DATE_TIME));
+        return result;
+    }
+
+    public static BatchTransactionResult rejected(int index, TransactionRequestData request, String errorMessage) {
+        BatchTransactionResult result = of(index, request, ActionState.REJECTED);
+        result.setErrorMessage(errorMessage);
+        return result;
+    }
+
+    public static BatchTransactionResult unknown(int index, TransactionRequestData request, String transactionCode,
+                                                 String errorMessage) {
+        BatchTransactionResult result = of(index, request, ActionState.UNKNOWN);
+        result.setTransactionCode(transactionCode);
+        result.setErrorMessage(errorMessage);
+        return result;
+    }
+
+    private static BatchTransactionResult of(int index, TransactionRequestData request, ActionState state) {
+        BatchTransactionResult result = new BatchTransactionResult();
+        result.setIndex(index);
+        result.setState(state);
+        result.setRoutingCode(request.getRoutingCode());
+        result.setExternalId(request.getExternalId());
+        result.setRequestCode(request.getRequestCode());
+        return result;
+    }
+}
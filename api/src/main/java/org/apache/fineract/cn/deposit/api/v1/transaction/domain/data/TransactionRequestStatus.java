@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.api.v1.transaction.domain.data;
+
+public class TransactionRequestStatus {
+
+  public enum State {
+    PENDING,
+    PROCESSING,
+    COMPLETED,
+    FAILED
+  }
+
+  private String identifier;
+  private String action;
+  private String accountId;
+  private String routingCode;
+  private String externalId;
+  private String requestCode;
+  private String state;
+  private String transactionCode;
+  private String errorMessage;
+  private String createdOn;
+  private String completedOn;
+
+  public TransactionRequestStatus() {
+    super();
+  }
+
+  public String getIdentifier() {
+    return this.identifier;
+  }
+
+  public void setIdentifier(final String identifier) {
+    this.identifier = identifier;
+  }
+
+  public String getAction() {
+    return this.action;
+  }
+
+  public void setAction(final String action) {
+    this.action = action;
+  }
+
+  public String getAccountId() {
+    return this.accountId;
+  }
+
+  public void setAccountId(final String accountId) {
+    this.accountId = accountId;
+  }
+
+  public String getRoutingCode() {
+    return this.routingCode;
+  }
+
+  public void setRoutingCode(final String routingCode) {
+    this.routingCode = routingCode;
+  }
+
+  public String getExternalId() {
+    return this.externalId;
+  }
+
+  public void setExternalId(final String externalId) {
+    this.externalId = externalId;
+  }
+
+  public String getRequestCode() {
+    return this.requestCode;
+  }
+
+  public void setRequestCode(final String requestCode) {
+    this.requestCode = requestCode;
+  }
+
+  public String getState() {
+    return this.state;
+  }
+
+  public void setState(final String state) {
+    this.state = state;
+  }
+
+  public String getTransactionCode() {
+    return this.transactionCode;
+  }
+
+  public void setTransactionCode(final String transactionCode) {
+    this.transactionCode = transactionCode;
+  }
+
+  public String getErrorMessage() {
+    return this.errorMessage;
+  }
+
+  public void setErrorMessage(final String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public String getCreatedOn() {
+    return this.createdOn;
+  }
+
+  public void setCreatedOn(final String createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public String getCompletedOn() {
+    return this.completedOn;
+  }
+
+  public void setCompletedOn(final String completedOn) {
+    this.completedOn = completedOn;
+  }
+}
@@ -20,9 +20,14 @@ package org.apache.fineract.cn.deposit;
 
 import org.apache.fineract.cn.deposit.api.v1.EventConstants;
 import org.apache.fineract.cn.deposit.api.v1.client.DepositAccountManager;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionCommand;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
 import org.apache.fineract.cn.deposit.service.DepositAccountManagementConfiguration;
 import org.apache.fineract.cn.deposit.service.internal.service.helper.AccountingService;
 import org.apache.fineract.cn.deposit.service.internal.service.helper.RhythmService;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
+import org.apache.fineract.cn.accounting.api.v1.domain.Account;
 import org.apache.fineract.cn.anubis.test.v1.TenantApplicationSecurityEnvironmentTestRule;
 import org.apache.fineract.cn.api.context.AutoUserContext;
 import org.apache.fineract.cn.lang.ApplicationName;
@@ -34,6 +39,7 @@ import org.junit.Before;
 import org.junit.ClassRule;
 import org.junit.Rule;
 import org.junit.runner.RunWith;
+import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -109,6 +115,40 @@ public abstract class AbstractDepositAccountManagementTest extends SuiteTestEnvi
     }
   }
 
+  Account prepareAccount(final LedgerManager ledgerManager, final Double balance) throws Exception {
+    return this.prepareAccount(Fixture.productDefinition(), ledgerManager, balance);
+  }
+
+  /**
+   * Creates and activates the given product definition with one instance. The given ledger manager hands out the
+   * returned account for the instance, so changing its balance stands in for a change in the ledger.
+   */
+  Account prepareAccount(final ProductDefinition productDefinition, final LedgerManager ledgerManager,
+                         final Double balance) throws Exception {
+    this.depositAccountManager.create(productDefinition);
+    this.eventRecorder.wait(EventConstants.POST_PRODUCT_DEFINITION, productDefinition.getIdentifier());
+
+    final ProductDefinitionCommand productDefinitionCommand = new ProductDefinitionCommand();
+    productDefinitionCommand.setAction(ProductDefinitionCommand.Action.ACTIVATE.name());
+    this.depositAccountManager.process(productDefinition.getIdentifier(), productDefinitionCommand);
+    this.eventRecorder.wait(EventConstants.POST_PRODUCT_DEFINITION_COMMAND, productDefinition.getIdentifier());
+
+    final ProductInstance productInstance = Fixture.productInstance(productDefinition.getIdentifier());
+    this.depositAccountManager.create(productInstance);
+    this.eventRecorder.wait(EventConstants.POST_PRODUCT_INSTANCE, productInstance.getCustomerIdentifier());
+
+    final String accountIdentifier = this.depositAccountManager
+        .findProductInstances(productDefinition.getIdentifier()).get(0).getAccountIdentifier();
+
+    final Account account = new Account();
+    account.setIdentifier(accountIdentifier);
+    account.setState(Account.State.OPEN.name());
+    account.setBalance(balance);
+    Mockito.doAnswer(invocation -> account).when(ledgerManager).findAccount(accountIdentifier);
+
+    return account;
+  }
+
   @Configuration
   @EnableEventRecording
   @EnableFeignClients(basePackages = {"org.apache.fineract.cn.deposit.api.v1"})
@@ -19,19 +19,32 @@
 package org.apache.fineract.cn.deposit;
 
 import org.apache.fineract.cn.deposit.api.v1.EventConstants;
+import org.apache.fineract.cn.deposit.api.v1.beat.domain.BeatJob;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
-import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionCommand;
 import org.apache.fineract.cn.deposit.api.v1.domain.Type;
-import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.ActionState;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.BatchTransactionResult;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.MoneyData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
 import org.apache.fineract.cn.deposit.service.internal.repository.AccruedInterestEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.AccruedInterestRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestBearingBalanceEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestBearingBalanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.SubTransactionTypeEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.SubTransactionTypeRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.BatchTransactionService;
+import org.apache.fineract.cn.deposit.service.internal.service.SubTxnTypeRegistry;
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import org.apache.commons.lang.RandomStringUtils;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
 import org.apache.fineract.cn.accounting.api.v1.domain.Account;
-import org.apache.fineract.cn.accounting.api.v1.domain.AccountType;
+import org.apache.fineract.cn.anubis.security.AccountLevelAccessVerifierCustom;
 import org.apache.fineract.cn.api.util.ApiFactory;
 import org.apache.fineract.cn.lang.DateConverter;
 import org.apache.fineract.cn.rhythm.spi.v1.client.BeatListener;
@@ -41,12 +54,31 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
 
 public class TestAccrual extends AbstractDepositAccountManagementTest {
 
+  @MockBean
+  private LedgerManager ledgerManager;
+
+  @MockBean
+  private AccountLevelAccessVerifierCustom accountLevelAccessVerifier;
+
   @Autowired
   private AccruedInterestRepository accruedInterestRepository;
 
+  @Autowired
+  private InterestBearingBalanceRepository interestBearingBalanceRepository;
+
+  @Autowired
+  private SubTransactionTypeRepository subTransactionTypeRepository;
+
+  @Autowired
+  private SubTxnTypeRegistry subTxnTypeRegistry;
+
+  @Autowired
+  private BatchTransactionService batchTransactionService;
+
   private BeatListener depositBeatListener;
 
   public TestAccrual() {
@@ -61,59 +93,99 @@ public class TestAccrual extends AbstractDepositAccountManagementTest {
 
   @Test
   public void shouldAccrueInterest() throws Exception {
-    final ProductDefinition productDefinition = Fixture.productDefinition();
-    productDefinition.setType(Type.SAVINGS.name());
-    productDefinition.setInterest(2.50D);
-    super.depositAccountManager.create(productDefinition);
-    super.eventRecorder.wait(EventConstants.POST_PRODUCT_DEFINITION, productDefinition.getIdentifier());
+    final LocalDate today = LocalDate.now(Clock.systemUTC());
+    final Account account = this.prepareSavingsAccount();
 
-    final ProductDefinitionCommand productDefinitionCommand = new ProductDefinitionCommand();
-    productDefinitionCommand.setAction(ProductDefinitionCommand.Action.ACTIVATE.name());
-    super.depositAccountManager.process(productDefinition.getIdentifier(), productDefinitionCommand);
-    super.eventRecorder.wait(EventConstants.POST_PRODUCT_DEFINITION_COMMAND, productDefinition.getIdentifier());
+    // the first beat takes the empty account as it is in the ledger, the deposit is booked after it
+    this.runBeat(today);
+    this.deposit(account, "1000.00", null);
+    this.runBeat(today.plusDays(1L));
 
-    final ProductInstance productInstance = Fixture.productInstance(productDefinition.getIdentifier());
-    super.depositAccountManager.create(productInstance);
-    super.eventRecorder.wait(EventConstants.POST_PRODUCT_INSTANCE, productInstance.getCustomerIdentifier());
+    Assert.assertEquals(0, BigDecimal.valueOf(1000.00D).compareTo(this.interestBearingBalance(account, today)));
+    Assert.assertEquals(25.00D, this.yearlyInterest(account, today.plusDays(1L)), 0.00D);
+  }
 
-    final List<ProductInstance> productInstances = super.depositAccountManager.findProductInstances(productDefinition.getIdentifier());
-    Assert.assertNotNull(productInstances);
-    Assert.assertEquals(1, productInstances.size());
-    final ProductInstance foundProductInstance = productInstances.get(0);
+  @Test
+  public void shouldNotAccrueDepositBeforeItsValueDate() throws Exception {
+    final LocalDate today = LocalDate.now(Clock.systemUTC());
+    final Account account = this.prepareSavingsAccount();
+
+    final SubTransactionTypeEntity subTransactionTypeEntity = new SubTransactionTypeEntity();
+    subTransactionTypeEntity.setIdentifier(RandomStringUtils.randomAlphanumeric(32));
+    subTransactionTypeEntity.setName("Cheque deposit");
+    subTransactionTypeEntity.setCashPayment(Boolean.FALSE);
+    subTransactionTypeEntity.setActive(Boolean.TRUE);
+    subTransactionTypeEntity.setOrderPosition(1);
+    subTransactionTypeEntity.setIbbConfPlusDays(2);
+    subTransactionTypeEntity.setIbbConfMinusDays(0);
+    this.subTransactionTypeRepository.save(subTransactionTypeEntity);
+    this.subTxnTypeRegistry.invalidate();
+
+    this.runBeat(today);
+    this.deposit(account, "1000.00", null);
+    this.deposit(account, "500.00", subTransactionTypeEntity.getIdentifier());
+    this.runBeat(today.plusDays(1L));
+
+    // the cheque bears interest two days after it was deposited
+    Assert.assertEquals(0, BigDecimal.valueOf(1000.00D).compareTo(this.interestBearingBalance(account, today)));
+    Assert.assertEquals(25.00D, this.yearlyInterest(account, today.plusDays(1L)), 0.00D);
+  }
+
+  private Account prepareSavingsAccount() throws Exception {
+    final ProductDefinition productDefinition = Fixture.productDefinition();
+    productDefinition.setType(Type.SAVINGS.name());
+    productDefinition.setInterest(2.50D);
+    final Account account = super.prepareAccount(productDefinition, this.ledgerManager, 0.00D);
+    // accounts without an interest-bearing balance yet are seeded from the ledger
+    Mockito.doAnswer(invocation -> account).when(super.accountingServiceSpy).findAccount(account.getIdentifier());
 
     super.depositAccountManager.postProductInstanceCommand(
-        foundProductInstance.getAccountIdentifier(), EventConstants.ACTIVATE_PRODUCT_INSTANCE_COMMAND);
-    super.eventRecorder.wait(EventConstants.ACTIVATE_PRODUCT_INSTANCE, foundProductInstance.getAccountIdentifier());
+        account.getIdentifier(), EventConstants.ACTIVATE_PRODUCT_INSTANCE_COMMAND);
+    super.eventRecorder.wait(EventConstants.ACTIVATE_PRODUCT_INSTANCE, account.getIdentifier());
 
-    final Account shareAccount = new Account();
-    shareAccount.setType(AccountType.EQUITY.name());
-    shareAccount.setIdentifier(foundProductInstance.getAccountIdentifier());
-    shareAccount.setBalance(1000.00D);
+    return account;
+  }
 
-    Mockito
-        .doAnswer(invocation -> shareAccount)
-        .when(super.accountingServiceSpy).findAccount(shareAccount.getIdentifier());
+  private void deposit(final Account account, final String amount, final String subTxnId) {
+    final List<BatchTransactionResult> results = this.batchTransactionService.process(Collections.singletonList(
+        new TransactionRequestData(null, null, null, RandomStringUtils.randomAlphanumeric(32),
+            account.getIdentifier(), "deposit", null, MoneyData.build(new BigDecimal(amount), "USD"), subTxnId,
+            null, null)), TransactionActionType.DEPOSIT);
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(0).getState());
+    account.setBalance(BigDecimal.valueOf(account.getBalance()).add(new BigDecimal(amount)).doubleValue());
+  }
 
-    final LocalDateTime dueDate = DateConverter.fromIsoString("2017-08-02T22:00:00.000Z");
+  private void runBeat(final LocalDate dueDate) throws InterruptedException {
     final BeatPublish beatPublish = new BeatPublish();
     beatPublish.setIdentifier(RandomStringUtils.randomAlphanumeric(32));
-    beatPublish.setForTime(DateConverter.toIsoString(dueDate));
+    beatPublish.setForTime(DateConverter.toIsoString(dueDate.atTime(22, 0)));
     this.depositBeatListener.publishBeat(beatPublish);
 
-    super.eventRecorder.wait(EventConstants.INTEREST_ACCRUED, DateConverter.toIsoString(dueDate.toLocalDate()));
+    for (int i = 0; i < 200; i++) {
+      final BeatJob beatJob = super.depositAccountManager.findBeatJob(beatPublish.getIdentifier());
+      Assert.assertEquals(DateConverter.toIsoString(dueDate), beatJob.getDueDate());
+      Assert.assertNotEquals(beatJob.getErrorMessage(), BeatJob.State.FAILED.name(), beatJob.getState());
+      if (BeatJob.State.COMPLETED.name().equals(beatJob.getState())) {
+        return;
+      }
+      Thread.sleep(100L);
+    }
+    throw new AssertionError("Beat for " + dueDate + " did not finish.");
+  }
 
-    final Optional<AccruedInterestEntity> optionalAccruedInterest =
-        this.accruedInterestRepository.findByCustomerAccountIdentifier(foundProductInstance.getAccountIdentifier());
+  private BigDecimal interestBearingBalance(final Account account, final LocalDate balanceDate) {
+    final List<InterestBearingBalanceEntity> balances = this.interestBearingBalanceRepository
+        .findByAccountIdentifierInAndBalanceDate(Collections.singletonList(account.getIdentifier()), balanceDate);
+    Assert.assertEquals(1, balances.size());
+    return balances.get(0).getBalance();
+  }
 
+  private Double yearlyInterest(final Account account, final LocalDate accrualDate) {
+    final Optional<AccruedInterestEntity> optionalAccruedInterest =
+        this.accruedInterestRepository.findByCustomerAccountIdentifier(account.getIdentifier());
     Assert.assertTrue(optionalAccruedInterest.isPresent());
-    final AccruedInterestEntity accruedInterestEntity = optionalAccruedInterest.get();
-    final Double interest =
-        accruedInterestEntity.getAmount()
-            * DateConverter.fromIsoString(beatPublish.getForTime()).toLocalDate().lengthOfYear();
-
-    final Double roundedInterest =
-        BigDecimal.valueOf(interest).setScale(2, BigDecimal.ROUND_HALF_EVEN).doubleValue();
 
-    Assert.assertEquals(25.00D, roundedInterest, 0.00D);
+    final Double interest = optionalAccruedInterest.get().getAmount() * accrualDate.lengthOfYear();
+    return BigDecimal.valueOf(interest).setScale(2, BigDecimal.ROUND_HALF_EVEN).doubleValue();
   }
 }
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit;
+
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.MoneyData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestStatus;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRequestEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRequestRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.AsyncTransactionService;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
+import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
+import org.apache.fineract.cn.anubis.security.AccountLevelAccessVerifierCustom;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+public class TestAsyncTransaction extends AbstractDepositAccountManagementTest {
+
+  @MockBean
+  private LedgerManager ledgerManager;
+
+  @MockBean
+  private AccountLevelAccessVerifierCustom accountLevelAccessVerifier;
+
+  @Autowired
+  private AsyncTransactionService asyncTransactionService;
+
+  @Autowired
+  private TransactionRequestRepository transactionRequestRepository;
+
+  public TestAsyncTransaction() {
+    super();
+  }
+
+  @Test
+  public void shouldCompleteSubmittedTransaction() throws Exception {
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 1000.00D).getIdentifier();
+    final TransactionRequestData request = this.request(accountIdentifier, null, "10.00");
+
+    final TransactionRequestStatus submitted =
+        this.asyncTransactionService.submit(request, TransactionActionType.DEPOSIT);
+    Assert.assertEquals(TransactionRequestStatus.State.PENDING.name(), submitted.getState());
+
+    final TransactionRequestStatus completed = this.waitForCompletion(null, request.getExternalId());
+    Assert.assertEquals(TransactionRequestStatus.State.COMPLETED.name(), completed.getState());
+    Assert.assertEquals(submitted.getIdentifier(), completed.getIdentifier());
+
+    final ArgumentCaptor<JournalEntry> journalEntry = ArgumentCaptor.forClass(JournalEntry.class);
+    Mockito.verify(this.ledgerManager).createJournalEntry(journalEntry.capture());
+    Assert.assertEquals(completed.getTransactionCode(), journalEntry.getValue().getTransactionIdentifier());
+  }
+
+  @Test
+  public void shouldMatchRoutingCodeOnLookup() throws Exception {
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 1000.00D).getIdentifier();
+    final TransactionRequestData request = this.request(accountIdentifier, "ROUTE-A", "10.00");
+
+    this.asyncTransactionService.submit(request, TransactionActionType.DEPOSIT);
+
+    Assert.assertEquals(TransactionRequestStatus.State.COMPLETED.name(),
+        this.waitForCompletion("ROUTE-A", request.getExternalId()).getState());
+    Assert.assertFalse(this.asyncTransactionService
+        .findTransactionRequest(null, "ROUTE-B", request.getExternalId()).isPresent());
+    Assert.assertFalse(this.asyncTransactionService
+        .findTransactionRequest(null, null, request.getExternalId()).isPresent());
+  }
+
+  @Test
+  public void shouldFailStaleRequestOnLookup() throws Exception {
+    final TransactionRequestEntity transactionRequestEntity = new TransactionRequestEntity();
+    transactionRequestEntity.setIdentifier(RandomStringUtils.randomAlphanumeric(32));
+    transactionRequestEntity.setAction(TransactionActionType.DEPOSIT.name());
+    transactionRequestEntity.setRequestCode(RandomStringUtils.randomAlphanumeric(32));
+    transactionRequestEntity.setState(TransactionRequestStatus.State.PROCESSING.name());
+    transactionRequestEntity.setCreatedBy("shed");
+    transactionRequestEntity.setCreatedOn(LocalDateTime.now(Clock.systemUTC()).minusDays(1L));
+    this.transactionRequestRepository.save(transactionRequestEntity);
+
+    final TransactionRequestStatus status = this.asyncTransactionService
+        .findTransactionRequest(transactionRequestEntity.getRequestCode(), null, null)
+        .orElseThrow(() -> new AssertionError("Transaction request not found."));
+    Assert.assertEquals(TransactionRequestStatus.State.FAILED.name(), status.getState());
+    Assert.assertNotNull(status.getErrorMessage());
+    Assert.assertNotNull(status.getCompletedOn());
+  }
+
+  private TransactionRequestStatus waitForCompletion(final String routingCode, final String externalId)
+      throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      final Optional<TransactionRequestStatus> status =
+          this.asyncTransactionService.findTransactionRequest(null, routingCode, externalId);
+      if (status.isPresent() && !TransactionRequestStatus.State.PENDING.name().equals(status.get().getState())
+          && !TransactionRequestStatus.State.PROCESSING.name().equals(status.get().getState())) {
+        return status.get();
+      }
+      Thread.sleep(100L);
+    }
+    throw new AssertionError("Transaction request " + externalId + " did not finish.");
+  }
+
+  private TransactionRequestData request(final String accountIdentifier, final String routingCode,
+                                         final String amount) {
+    return new TransactionRequestData(null, null, routingCode, RandomStringUtils.randomAlphanumeric(32),
+        accountIdentifier, "async", null, MoneyData.build(new BigDecimal(amount), "USD"), null, null, null);
+  }
+}
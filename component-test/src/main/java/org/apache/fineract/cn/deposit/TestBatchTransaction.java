@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit;
+
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.ActionState;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.BatchTransactionResult;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.MoneyData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.BatchTransactionService;
+import feign.RetryableException;
+import java.math.BigDecimal;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
+import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
+import org.apache.fineract.cn.anubis.security.AccountLevelAccessVerifierCustom;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatcher;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+public class TestBatchTransaction extends AbstractDepositAccountManagementTest {
+
+  @MockBean
+  private LedgerManager ledgerManager;
+
+  @MockBean
+  private AccountLevelAccessVerifierCustom accountLevelAccessVerifier;
+
+  @Autowired
+  private BatchTransactionService batchTransactionService;
+
+  @Autowired
+  private TransactionRepository transactionRepository;
+
+  public TestBatchTransaction() {
+    super();
+  }
+
+  @Test
+  public void shouldPostOneJournalEntryPerItem() throws Exception {
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 1000.00D).getIdentifier();
+
+    final List<BatchTransactionResult> results = this.batchTransactionService.process(Arrays.asList(
+        this.request(accountIdentifier, "10.00", "first"),
+        this.request(accountIdentifier, "20.00", "second"),
+        this.request(accountIdentifier, "30.00", "third")), TransactionActionType.DEPOSIT);
+
+    results.forEach(result -> Assert.assertEquals(ActionState.ACCEPTED, result.getState()));
+
+    final ArgumentCaptor<JournalEntry> journalEntries = ArgumentCaptor.forClass(JournalEntry.class);
+    Mockito.verify(this.ledgerManager, Mockito.times(3)).createJournalEntry(journalEntries.capture());
+    results.forEach(result -> Assert.assertTrue(journalEntries.getAllValues().stream()
+        .anyMatch(journalEntry -> journalEntry.getTransactionIdentifier().equals(result.getTransactionCode()))));
+  }
+
+  @Test
+  public void shouldRejectOnlyItemsThatCouldNotBePosted() throws Exception {
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 1000.00D).getIdentifier();
+
+    Mockito.doThrow(new IllegalStateException("Ledger unavailable."))
+        .when(this.ledgerManager)
+        .createJournalEntry(Matchers.argThat(new JournalEntryMessageMatcher("fail")));
+
+    final TransactionRequestData failing = this.request(accountIdentifier, "20.00", "fail");
+    final List<BatchTransactionResult> results = this.batchTransactionService.process(Arrays.asList(
+        this.request(accountIdentifier, "10.00", "first"),
+        failing,
+        this.request(accountIdentifier, "30.00", "third")), TransactionActionType.DEPOSIT);
+
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(0).getState());
+    Assert.assertEquals(ActionState.REJECTED, results.get(1).getState());
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(2).getState());
+    Assert.assertTrue(this.transactionRepository.findParentsByIdempotencyKey("", failing.getExternalId()).isEmpty());
+    Assert.assertEquals(1,
+        this.transactionRepository.findParentsByIdempotencyKey("", results.get(0).getExternalId()).size());
+  }
+
+  @Test
+  public void shouldKeepItemsWhoseOutcomeIsUnknown() throws Exception {
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 1000.00D).getIdentifier();
+
+    Mockito.doThrow(new RetryableException("Read timed out.", new SocketTimeoutException(), null))
+        .when(this.ledgerManager)
+        .createJournalEntry(Matchers.argThat(new JournalEntryMessageMatcher("timeout")));
+
+    final TransactionRequestData timingOut = this.request(accountIdentifier, "20.00", "timeout");
+    final List<BatchTransactionResult> results = this.batchTransactionService.process(Arrays.asList(
+        this.request(accountIdentifier, "10.00", "first"),
+        timingOut), TransactionActionType.DEPOSIT);
+
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(0).getState());
+    Assert.assertEquals(ActionState.UNKNOWN, results.get(1).getState());
+    Assert.assertNotNull(results.get(1).getTransactionCode());
+    Assert.assertEquals(1,
+        this.transactionRepository.findParentsByIdempotencyKey("", timingOut.getExternalId()).size());
+
+    // submitting the item again finds its rows instead of booking it a second time
+    final List<BatchTransactionResult> retried = this.batchTransactionService.process(
+        Collections.singletonList(timingOut), TransactionActionType.DEPOSIT);
+    Assert.assertEquals(results.get(1).getTransactionCode(), retried.get(0).getTransactionCode());
+    Mockito.verify(this.ledgerManager, Mockito.times(2)).createJournalEntry(Matchers.any(JournalEntry.class));
+  }
+
+  @Test
+  public void shouldRejectChunkThatCouldNotBePersisted() throws Exception {
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 1000.00D).getIdentifier();
+
+    final TransactionRequestData valid = this.request(accountIdentifier, "10.00", "first");
+    final TransactionRequestData tooLong = new TransactionRequestData(null, null, null,
+        RandomStringUtils.randomAlphanumeric(300), accountIdentifier, "second", null,
+        MoneyData.build(new BigDecimal("20.00"), "USD"), null, null, null);
+    final List<BatchTransactionResult> results =
+        this.batchTransactionService.process(Arrays.asList(valid, tooLong), TransactionActionType.DEPOSIT);
+
+    results.forEach(result -> Assert.assertEquals(ActionState.REJECTED, result.getState()));
+    Mockito.verify(this.ledgerManager, Mockito.never()).createJournalEntry(Matchers.any(JournalEntry.class));
+    Assert.assertTrue(this.transactionRepository.findParentsByIdempotencyKey("", valid.getExternalId()).isEmpty());
+  }
+
+  @Test
+  public void shouldTrackWithdrawableBalanceAcrossItems() throws Exception {
+    // minimum balance of the fixture is 50.00, so 150.00 can be withdrawn
+    final String accountIdentifier = super.prepareAccount(this.ledgerManager, 200.00D).getIdentifier();
+
+    final List<BatchTransactionResult> results = this.batchTransactionService.process(Arrays.asList(
+        this.request(accountIdentifier, "100.00", "first"),
+        this.request(accountIdentifier, "100.00", "second"),
+        this.request(accountIdentifier, "40.00", "third")), TransactionActionType.WITHDRAWAL);
+
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(0).getState());
+    Assert.assertEquals(ActionState.REJECTED, results.get(1).getState());
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(2).getState());
+    Mockito.verify(this.ledgerManager, Mockito.times(2)).createJournalEntry(Matchers.any(JournalEntry.class));
+  }
+
+  private TransactionRequestData request(final String accountIdentifier, final String amount, final String note) {
+    return new TransactionRequestData(null, null, null, RandomStringUtils.randomAlphanumeric(32), accountIdentifier,
+        note, null, MoneyData.build(new BigDecimal(amount), "USD"), null, null, null);
+  }
+
+  private static class JournalEntryMessageMatcher extends ArgumentMatcher<JournalEntry> {
+    private final String message;
+
+    private JournalEntryMessageMatcher(final String message) {
+      this.message = message;
+    }
+
+    @Override
+    public boolean matches(final Object argument) {
+      return argument instanceof JournalEntry && this.message.equals(((JournalEntry) argument).getMessage());
+    }
+  }
+}
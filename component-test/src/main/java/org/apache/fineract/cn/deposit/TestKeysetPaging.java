@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit;
+
+import org.apache.fineract.cn.deposit.api.v1.EventConstants;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstancePage;
+import org.apache.fineract.cn.deposit.service.internal.service.ProductInstanceService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class TestKeysetPaging extends AbstractDepositAccountManagementTest {
+
+  @Autowired
+  private ProductInstanceService productInstanceService;
+
+  public TestKeysetPaging() {
+    super();
+  }
+
+  @Test
+  public void shouldPageThroughInstancesOfProductDefinition() throws Exception {
+    final ProductDefinition productDefinition = this.createProductDefinition();
+    for (int i = 0; i < 5; i++) {
+      final ProductInstance productInstance = Fixture.productInstance(productDefinition.getIdentifier());
+      super.depositAccountManager.create(productInstance);
+      super.eventRecorder.wait(EventConstants.POST_PRODUCT_INSTANCE, productInstance.getCustomerIdentifier());
+    }
+    final List<String> expected = super.depositAccountManager.findProductInstances(productDefinition.getIdentifier())
+        .stream()
+        .map(ProductInstance::getAccountIdentifier)
+        .collect(Collectors.toList());
+    Assert.assertEquals(5, expected.size());
+
+    final List<String> paged = new ArrayList<>();
+    String continuationToken = null;
+    int pages = 0;
+    do {
+      final ProductInstancePage page = super.depositAccountManager.findProductInstancePage(
+          productDefinition.getIdentifier(), 2, "id", "ASC", continuationToken);
+      Assert.assertTrue(page.getProductInstances().size() <= 2);
+      page.getProductInstances().forEach(productInstance -> paged.add(productInstance.getAccountIdentifier()));
+      continuationToken = page.getContinuationToken();
+      pages++;
+    } while (continuationToken != null);
+
+    // the plain listing has no defined order, the pages must hold each instance exactly once
+    Assert.assertEquals(3, pages);
+    Assert.assertEquals(expected.size(), paged.size());
+    Assert.assertEquals(new HashSet<>(expected), new HashSet<>(paged));
+  }
+
+  @Test
+  public void shouldPageThroughInstancesOfCustomerDescending() throws Exception {
+    final String customerIdentifier = Fixture.productInstance("ignored").getCustomerIdentifier();
+    for (int i = 0; i < 3; i++) {
+      final ProductDefinition productDefinition = this.createProductDefinition();
+      final ProductInstance productInstance = Fixture.productInstance(productDefinition.getIdentifier());
+      productInstance.setCustomerIdentifier(customerIdentifier);
+      super.depositAccountManager.create(productInstance);
+      this.waitForInstances(customerIdentifier, i + 1);
+    }
+
+    final List<String> paged = new ArrayList<>();
+    ProductInstancePage page = super.depositAccountManager.fetchProductInstancePage(
+        customerIdentifier, 2, "accountIdentifier", "DESC", null);
+    page.getProductInstances().forEach(productInstance -> paged.add(productInstance.getAccountIdentifier()));
+    Assert.assertNotNull(page.getContinuationToken());
+
+    page = super.depositAccountManager.fetchProductInstancePage(
+        customerIdentifier, 2, "accountIdentifier", "DESC", page.getContinuationToken());
+    page.getProductInstances().forEach(productInstance -> paged.add(productInstance.getAccountIdentifier()));
+    Assert.assertNull(page.getContinuationToken());
+
+    final List<String> expected = new ArrayList<>(paged);
+    expected.sort(Comparator.reverseOrder());
+    Assert.assertEquals(3, paged.size());
+    Assert.assertEquals(expected, paged);
+  }
+
+  @Test(expected = ServiceException.class)
+  public void shouldRejectContinuationTokenOfOtherSort() throws Exception {
+    final ProductDefinition productDefinition = this.createProductDefinition();
+    for (int i = 0; i < 2; i++) {
+      final ProductInstance productInstance = Fixture.productInstance(productDefinition.getIdentifier());
+      super.depositAccountManager.create(productInstance);
+      super.eventRecorder.wait(EventConstants.POST_PRODUCT_INSTANCE, productInstance.getCustomerIdentifier());
+    }
+
+    final ProductInstancePage page = this.productInstanceService.findPageByProductDefinition(
+        productDefinition.getIdentifier(), 1, "id", "ASC", null);
+    Assert.assertNotNull(page.getContinuationToken());
+
+    this.productInstanceService.findPageByProductDefinition(
+        productDefinition.getIdentifier(), 1, "accountIdentifier", "ASC", page.getContinuationToken());
+  }
+
+  private ProductDefinition createProductDefinition() throws Exception {
+    final ProductDefinition productDefinition = Fixture.productDefinition();
+    super.depositAccountManager.create(productDefinition);
+    super.eventRecorder.wait(EventConstants.POST_PRODUCT_DEFINITION, productDefinition.getIdentifier());
+    return productDefinition;
+  }
+
+  private void waitForInstances(final String customerIdentifier, final int count) throws InterruptedException {
+    for (int i = 0; i < 100; i++) {
+      if (super.depositAccountManager.fetchProductInstances(customerIdentifier).size() >= count) {
+        return;
+      }
+      Thread.sleep(100L);
+    }
+    throw new AssertionError("Product instances of " + customerIdentifier + " not created.");
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit;
+
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.ActionState;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.BatchTransactionResult;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.MoneyData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
+import org.apache.fineract.cn.deposit.service.internal.service.BatchTransactionService;
+import org.apache.fineract.cn.deposit.service.internal.service.ProductInstanceService;
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import org.apache.commons.lang3.RandomStringUtils;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
+import org.apache.fineract.cn.accounting.api.v1.domain.Account;
+import org.apache.fineract.cn.anubis.security.AccountLevelAccessVerifierCustom;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+public class TestLedgerAccountCache extends AbstractDepositAccountManagementTest {
+
+  @MockBean
+  private LedgerManager ledgerManager;
+
+  @MockBean
+  private AccountLevelAccessVerifierCustom accountLevelAccessVerifier;
+
+  @Autowired
+  private ProductInstanceService productInstanceService;
+
+  @Autowired
+  private BatchTransactionService batchTransactionService;
+
+  public TestLedgerAccountCache() {
+    super();
+  }
+
+  @Test
+  public void shouldServeRepeatedReadsFromCache() throws Exception {
+    final Account account = this.prepareAccount(1000.00D);
+    final String accountIdentifier = account.getIdentifier();
+
+    Assert.assertEquals(1000.00D, this.readBalance(accountIdentifier), 0.001D);
+    account.setBalance(1500.00D);
+    Assert.assertEquals(1000.00D, this.readBalance(accountIdentifier), 0.001D);
+
+    Mockito.verify(super.accountingServiceSpy, Mockito.times(1)).findAccount(accountIdentifier);
+  }
+
+  @Test
+  public void shouldDropCachedAccountAfterPosting() throws Exception {
+    final Account account = this.prepareAccount(1000.00D);
+    final String accountIdentifier = account.getIdentifier();
+
+    Assert.assertEquals(1000.00D, this.readBalance(accountIdentifier), 0.001D);
+
+    final List<BatchTransactionResult> results = this.batchTransactionService.process(Collections.singletonList(
+        new TransactionRequestData(null, null, null, RandomStringUtils.randomAlphanumeric(32), accountIdentifier,
+            "deposit", null, MoneyData.build(new BigDecimal("500.00"), "USD"), null, null, null)),
+        TransactionActionType.DEPOSIT);
+    Assert.assertEquals(ActionState.ACCEPTED, results.get(0).getState());
+    account.setBalance(1500.00D);
+
+    Assert.assertEquals(1500.00D, this.readBalance(accountIdentifier), 0.001D);
+    Mockito.verify(super.accountingServiceSpy, Mockito.times(2)).findAccount(accountIdentifier);
+  }
+
+  private Double readBalance(final String accountIdentifier) {
+    return this.productInstanceService.findByAccountIdentifier(accountIdentifier)
+        .orElseThrow(() -> new AssertionError("Product instance not found."))
+        .getBalance();
+  }
+
+  /**
+   * The ledger manager answers the transaction path, the accounting service the read path. Both hand out the same
+   * account.
+   */
+  private Account prepareAccount(final Double balance) throws Exception {
+    final Account account = super.prepareAccount(this.ledgerManager, balance);
+    // the listing while preparing already asked the accounting service, only later lookups are counted
+    Mockito.reset(super.accountingServiceSpy);
+    Mockito.doAnswer(invocation -> account).when(super.accountingServiceSpy).findAccount(account.getIdentifier());
+    return account;
+  }
+}
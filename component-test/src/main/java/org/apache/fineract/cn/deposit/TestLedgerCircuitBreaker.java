@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit;
+
+import org.apache.fineract.cn.deposit.service.internal.service.helper.LedgerCircuitBreaker;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.LedgerUnavailableException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestLedgerCircuitBreaker extends AbstractDepositAccountManagementTest {
+
+  private static final long OPEN_IN_MILLIS = 100L;
+
+  public TestLedgerCircuitBreaker() {
+    super();
+  }
+
+  @Test
+  public void shouldOpenWhenFailureRateIsReached() throws Exception {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.ledgerCircuitBreaker(8);
+    this.succeed(ledgerCircuitBreaker);
+    this.succeed(ledgerCircuitBreaker);
+    this.failWithConnectionError(ledgerCircuitBreaker);
+    Assert.assertEquals(LedgerCircuitBreaker.State.CLOSED.name(), ledgerCircuitBreaker.getState());
+    this.failWithConnectionError(ledgerCircuitBreaker);
+    Assert.assertEquals(LedgerCircuitBreaker.State.OPEN.name(), ledgerCircuitBreaker.getState());
+
+    final AtomicInteger calls = new AtomicInteger();
+    try {
+      ledgerCircuitBreaker.call("findAccount", calls::incrementAndGet);
+      Assert.fail("Expected the circuit to reject the call.");
+    } catch (final LedgerUnavailableException ex) {
+      // expected
+    }
+    Assert.assertEquals(0, calls.get());
+  }
+
+  @Test
+  public void shouldNotCountBusinessErrors() throws Exception {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.ledgerCircuitBreaker(8);
+    for (int i = 0; i < 4; i++) {
+      try {
+        ledgerCircuitBreaker.call("findAccount", () -> {
+          throw new IllegalArgumentException("Account not found.");
+        });
+        Assert.fail("Expected the call to fail.");
+      } catch (final IllegalArgumentException ex) {
+        // expected
+      }
+    }
+    Assert.assertEquals(LedgerCircuitBreaker.State.CLOSED.name(), ledgerCircuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldCloseAfterSuccessfulTrialCall() throws Exception {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.openedLedgerCircuitBreaker();
+    Thread.sleep(OPEN_IN_MILLIS * 2L);
+
+    this.succeed(ledgerCircuitBreaker);
+    Assert.assertEquals(LedgerCircuitBreaker.State.CLOSED.name(), ledgerCircuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldReopenAfterFailedTrialCall() throws Exception {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.openedLedgerCircuitBreaker();
+    Thread.sleep(OPEN_IN_MILLIS * 2L);
+
+    this.failWithConnectionError(ledgerCircuitBreaker);
+    Assert.assertEquals(LedgerCircuitBreaker.State.OPEN.name(), ledgerCircuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldAdmitSingleTrialCallWhenHalfOpen() throws Exception {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.openedLedgerCircuitBreaker();
+    Thread.sleep(OPEN_IN_MILLIS * 2L);
+
+    final Boolean concurrentCallRejected = ledgerCircuitBreaker.call("findAccount", () -> {
+      Assert.assertEquals(LedgerCircuitBreaker.State.HALF_OPEN.name(), ledgerCircuitBreaker.getState());
+      try {
+        this.succeed(ledgerCircuitBreaker);
+        return false;
+      } catch (final LedgerUnavailableException ex) {
+        return true;
+      }
+    });
+    Assert.assertTrue(concurrentCallRejected);
+    Assert.assertEquals(LedgerCircuitBreaker.State.CLOSED.name(), ledgerCircuitBreaker.getState());
+  }
+
+  @Test
+  public void shouldRejectCallsBeyondBulkhead() throws Exception {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.ledgerCircuitBreaker(1);
+
+    final Boolean concurrentCallRejected = ledgerCircuitBreaker.call("findAccount", () -> {
+      try {
+        this.succeed(ledgerCircuitBreaker);
+        return false;
+      } catch (final LedgerUnavailableException ex) {
+        return true;
+      }
+    });
+    Assert.assertTrue(concurrentCallRejected);
+    Assert.assertEquals(1L, ledgerCircuitBreaker.getRejectedCalls());
+    Assert.assertEquals(1, ledgerCircuitBreaker.getAvailableConcurrentCalls());
+  }
+
+  private LedgerCircuitBreaker ledgerCircuitBreaker(final Integer maxConcurrentCalls) {
+    // window of four calls, opens at half of them failing
+    return new LedgerCircuitBreaker(super.logger, maxConcurrentCalls, 10L, 4, 50, OPEN_IN_MILLIS);
+  }
+
+  private LedgerCircuitBreaker openedLedgerCircuitBreaker() {
+    final LedgerCircuitBreaker ledgerCircuitBreaker = this.ledgerCircuitBreaker(8);
+    for (int i = 0; i < 4; i++) {
+      this.failWithConnectionError(ledgerCircuitBreaker);
+    }
+    Assert.assertEquals(LedgerCircuitBreaker.State.OPEN.name(), ledgerCircuitBreaker.getState());
+    return ledgerCircuitBreaker;
+  }
+
+  private void succeed(final LedgerCircuitBreaker ledgerCircuitBreaker) {
+    ledgerCircuitBreaker.call("findAccount", () -> "account");
+  }
+
+  private void failWithConnectionError(final LedgerCircuitBreaker ledgerCircuitBreaker) {
+    try {
+      ledgerCircuitBreaker.call("findAccount", () -> {
+        throw new UncheckedIOException(new IOException("Connection refused."));
+      });
+      Assert.fail("Expected the call to fail.");
+    } catch (final UncheckedIOException ex) {
+      // expected
+    }
+  }
+}
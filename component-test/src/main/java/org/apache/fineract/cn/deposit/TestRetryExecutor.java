@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit;
+
+import org.apache.fineract.cn.deposit.service.internal.service.helper.JournalEntryOutcomeUnknownException;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.RetryExecutor;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+public class TestRetryExecutor extends AbstractDepositAccountManagementTest {
+
+  public TestRetryExecutor() {
+    super();
+  }
+
+  @Test
+  public void shouldRetryTransientFailures() throws Exception {
+    final RetryExecutor retryExecutor = this.retryExecutor(5, 0.1D, 10);
+    final AtomicInteger attempts = new AtomicInteger();
+
+    final String result = retryExecutor.execute(() -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new ConcurrencyFailureException("Row was updated by another transaction.");
+      }
+      if (attempts.get() == 2) {
+        throw new SQLException("Could not serialize access.", "40001");
+      }
+      return "done";
+    });
+
+    Assert.assertEquals("done", result);
+    Assert.assertEquals(3, attempts.get());
+    Assert.assertEquals(2L, retryExecutor.getRetries());
+  }
+
+  @Test
+  public void shouldNotRetryOtherFailures() throws Exception {
+    final RetryExecutor retryExecutor = this.retryExecutor(5, 0.1D, 10);
+    final AtomicInteger attempts = new AtomicInteger();
+
+    this.assertFails(retryExecutor, () -> {
+      attempts.incrementAndGet();
+      throw new IllegalArgumentException("Account not found.");
+    });
+
+    Assert.assertEquals(1, attempts.get());
+    Assert.assertEquals(0L, retryExecutor.getRetries());
+  }
+
+  @Test
+  public void shouldNotRetryJournalEntryOfUnknownOutcome() throws Exception {
+    final RetryExecutor retryExecutor = this.retryExecutor(5, 0.1D, 10);
+    final AtomicInteger attempts = new AtomicInteger();
+
+    this.assertFails(retryExecutor, () -> {
+      attempts.incrementAndGet();
+      throw new JournalEntryOutcomeUnknownException("abc",
+          new ConcurrencyFailureException("Row was updated by another transaction."));
+    });
+
+    Assert.assertEquals(1, attempts.get());
+  }
+
+  @Test
+  public void shouldRetryFailuresTheCallerDeclaresRetryable() throws Exception {
+    final RetryExecutor retryExecutor = this.retryExecutor(5, 0.1D, 10);
+    final AtomicInteger attempts = new AtomicInteger();
+
+    final String result = retryExecutor.execute(() -> {
+      if (attempts.incrementAndGet() == 1) {
+        throw new DataIntegrityViolationException("Duplicate external id.");
+      }
+      return "done";
+    }, ex -> ex instanceof DataIntegrityViolationException);
+
+    Assert.assertEquals("done", result);
+    Assert.assertEquals(2, attempts.get());
+  }
+
+  @Test
+  public void shouldGiveUpAfterMaxAttempts() throws Exception {
+    final RetryExecutor retryExecutor = this.retryExecutor(3, 0.1D, 10);
+    final AtomicInteger attempts = new AtomicInteger();
+
+    this.assertFails(retryExecutor, () -> {
+      attempts.incrementAndGet();
+      throw new ConcurrencyFailureException("Row was updated by another transaction.");
+    });
+
+    Assert.assertEquals(3, attempts.get());
+    Assert.assertEquals(1L, retryExecutor.getExhausted());
+  }
+
+  @Test
+  public void shouldStopRetryingWhenBudgetIsSpent() throws Exception {
+    final RetryExecutor retryExecutor = this.retryExecutor(5, 0.0D, 2);
+    final AtomicInteger attempts = new AtomicInteger();
+    final RetryExecutorCall failing = () -> {
+      attempts.incrementAndGet();
+      throw new ConcurrencyFailureException("Row was updated by another transaction.");
+    };
+
+    this.assertFails(retryExecutor, failing);
+    Assert.assertEquals(3, attempts.get());
+
+    attempts.set(0);
+    this.assertFails(retryExecutor, failing);
+    Assert.assertEquals(1, attempts.get());
+    Assert.assertEquals(2L, retryExecutor.getBudgetRejections());
+  }
+
+  private RetryExecutor retryExecutor(final Integer maxAttempts, final Double budgetRatio,
+                                      final Integer budgetMaxRetries) {
+    return new RetryExecutor(super.logger, maxAttempts, 1L, 2L, budgetRatio, budgetMaxRetries);
+  }
+
+  private void assertFails(final RetryExecutor retryExecutor, final RetryExecutorCall call) {
+    try {
+      retryExecutor.execute(() -> {
+        call.run();
+        return null;
+      });
+      Assert.fail("Expected the call to fail.");
+    } catch (final Exception ex) {
+      // expected
+    }
+  }
+
+  @FunctionalInterface
+  private interface RetryExecutorCall {
+    void run() throws Exception;
+  }
+}
@@ -30,7 +30,13 @@ import org.junit.runners.Suite;
     TestProductInstance.class,
     TestActions.class,
     TestAccrual.class,
-    TestDividendDistribution.class
+    TestDividendDistribution.class,
+    TestBatchTransaction.class,
+    TestAsyncTransaction.class,
+    TestRetryExecutor.class,
+    TestLedgerCircuitBreaker.class,
+    TestLedgerAccountCache.class,
+    TestKeysetPaging.class
 })
 public class TestSuite extends SuiteTestEnvironment {
 }
@@ -24,10 +24,21 @@ import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.Transaction
 public class TransactionCommand {
     private final TransactionRequestData transactionRequest;
     private final TransactionActionType action;
+    private final String transactionIdentifier;
 
     public TransactionCommand(TransactionRequestData transactionRequest, TransactionActionType action) {
+        this(transactionRequest, action, null);
+    }
+
+    /**
+     * @param transactionIdentifier identifier already handed out to the client, used for the deposit or withdrawal
+     *                              row instead of a new one
+     */
+    public TransactionCommand(TransactionRequestData transactionRequest, TransactionActionType action,
+                              String transactionIdentifier) {
         this.transactionRequest = transactionRequest;
         this.action = action;
+        this.transactionIdentifier = transactionIdentifier;
     }
 
     public TransactionRequestData getTransactionRequest() {
@@ -37,4 +48,8 @@ public class TransactionCommand {
     public TransactionActionType getAction() {
         return action;
     }
+
+    public String getTransactionIdentifier() {
+        return transactionIdentifier;
+    }
 }
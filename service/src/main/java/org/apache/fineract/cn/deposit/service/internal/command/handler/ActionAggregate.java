@@ -24,6 +24,7 @@ import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.command.CreateActionCommand;
 import org.apache.fineract.cn.deposit.service.internal.mapper.ActionMapper;
 import org.apache.fineract.cn.deposit.service.internal.repository.ActionRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.ProductDefinitionCache;
 import org.apache.fineract.cn.command.annotation.Aggregate;
 import org.apache.fineract.cn.command.annotation.CommandHandler;
 import org.apache.fineract.cn.command.annotation.EventEmitter;
@@ -37,18 +38,22 @@ public class ActionAggregate {
 
   private final Logger logger;
   private final ActionRepository actionRepository;
+  private final ProductDefinitionCache productDefinitionCache;
 
   @Autowired
   public ActionAggregate(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
-                         final ActionRepository actionRepository) {
+                         final ActionRepository actionRepository,
+                         final ProductDefinitionCache productDefinitionCache) {
     this.logger = logger;
     this.actionRepository = actionRepository;
+    this.productDefinitionCache = productDefinitionCache;
   }
 
   @CommandHandler
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.POST_PRODUCT_ACTION)
   @Transactional
   public String createAction(final CreateActionCommand createActionCommand) {
+    this.productDefinitionCache.invalidate();
     final Action action = createActionCommand.action();
     this.actionRepository.save(ActionMapper.map(action));
     this.logger.debug("Action {} created.", action.getIdentifier());
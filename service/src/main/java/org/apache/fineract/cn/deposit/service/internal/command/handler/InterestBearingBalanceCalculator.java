@@ -23,109 +23,62 @@ import org.apache.fineract.cn.command.annotation.CommandHandler;
 import org.apache.fineract.cn.command.annotation.CommandLogLevel;
 import org.apache.fineract.cn.command.annotation.EventEmitter;
 import org.apache.fineract.cn.deposit.api.v1.EventConstants;
-import org.apache.fineract.cn.deposit.api.v1.domain.Type;
 import org.apache.fineract.cn.deposit.service.internal.command.CalculateIBBCommand;
-import org.apache.fineract.cn.deposit.service.internal.repository.*;
-import org.apache.fineract.cn.deposit.service.internal.service.TransactionService;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.DailyBalanceService;
+import org.apache.fineract.cn.deposit.service.internal.service.InterestAccrualService;
+import org.apache.fineract.cn.deposit.service.internal.service.InterestBearingBalanceService;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.ContextAwareExecutor;
 import org.apache.fineract.cn.lang.DateConverter;
+import org.springframework.beans.factory.annotation.Autowired;
 
-import javax.transaction.Transactional;
-import java.math.BigDecimal;
+import java.time.Clock;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.Callable;
 
 @Aggregate
 public class InterestBearingBalanceCalculator {
 
-    private static final String ACTIVE = "ACTIVE";
-
-    private ProductDefinitionRepository productDefinitionRepository;
-    private ProductInstanceRepository productInstanceRepository;
-    private TransactionRepository transactionRepository;
-    private SubTransactionTypeRepository subTransactionTypeRepository;
-
-    //TODO: constructor
+    private final ProductDefinitionRepository productDefinitionRepository;
+    private final InterestBearingBalanceService interestBearingBalanceService;
+    private final ContextAwareExecutor contextAwareExecutor;
+    private final DailyBalanceService dailyBalanceService;
+
+    @Autowired
+    public InterestBearingBalanceCalculator(final ProductDefinitionRepository productDefinitionRepository,
+                                            final InterestBearingBalanceService interestBearingBalanceService,
+                                            final ContextAwareExecutor contextAwareExecutor,
+                                            final DailyBalanceService dailyBalanceService) {
+        super();
+        this.productDefinitionRepository = productDefinitionRepository;
+        this.interestBearingBalanceService = interestBearingBalanceService;
+        this.contextAwareExecutor = contextAwareExecutor;
+        this.dailyBalanceService = dailyBalanceService;
+    }
 
-    @Transactional
     @CommandHandler(logStart = CommandLogLevel.DEBUG, logFinish =  CommandLogLevel.DEBUG)
     @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.CALCULATE_IBB)
     public String process(final CalculateIBBCommand calculateIBBCommand) {
         final LocalDate dueDate = calculateIBBCommand.dueDate();
         //calculate and store ibb for the date-1day
+        final LocalDate balanceDate = dueDate.minusDays(1L);
+        // accounts seen for the first time are seeded from the ledger, walked back with the movements since
+        this.dailyBalanceService.refresh(balanceDate, LocalDate.now(Clock.systemUTC()));
         final List<ProductDefinitionEntity> productDefinitions = this.productDefinitionRepository.findAll();
 
+        final List<Callable<Void>> calculationTasks = new ArrayList<>();
         productDefinitions.forEach(productDefinitionEntity -> {
-            if (this.canFindIBBForProduct(productDefinitionEntity)) {
-                final List<ProductInstanceEntity> productInstances =
-                        this.productInstanceRepository.findByProductDefinition(productDefinitionEntity);
-
-                productInstances.forEach(productInstanceEntity -> {
-                    if (productInstanceEntity.getState().equals(ACTIVE)) {
-                        //get transactions
-                        List<TransactionEntity> transactions =  transactionRepository.findByAccountId(productInstanceEntity.getAccountIdentifier());
-                        if(!transactions.isEmpty())
-                            calculateAndSaveIBB(productInstanceEntity, transactions, dueDate);
-                    }
-                });
+            if (InterestAccrualService.accruableProduct(productDefinitionEntity)) {
+                calculationTasks.addAll(this.interestBearingBalanceService.calculationTasks(productDefinitionEntity,
+                        balanceDate, this.contextAwareExecutor.getParallelism()));
             }
         });
 
-        return DateConverter.toIsoString(dueDate);
-    }
+        this.contextAwareExecutor.invokeAll(calculationTasks);
 
-    private void calculateAndSaveIBB(ProductInstanceEntity productInstanceEntity, List<TransactionEntity> transactions,
-                                     LocalDate dueDate) {
-        BigDecimal ibBalance = BigDecimal.ZERO;
-        for(TransactionEntity transaction: transactions){
-            SubTransactionTypeEntity subTransactionTypeEntity = getSubTxnTypeEntityFromTxn(transaction);
-            if(subTransactionTypeEntity!= null && (subTransactionTypeEntity.getIbbConfPlusDays() != 0
-                || subTransactionTypeEntity.getIbbConfMinusDays() !=0)) {
-
-                if(TransactionService.CREDIT.equals(transaction.getType()) &&
-                        isTxnDateOnOrAfterTodayPlusX(dueDate, transaction.getTransactionDate().toLocalDate(),
-                                subTransactionTypeEntity.getIbbConfPlusDays())){
-                    //add credit after checking day passed condition: Deposit Value Date - T+x
-                    ibBalance = ibBalance.add(transaction.getAmount());
-
-                }else if(TransactionService.DEBIT.equals(transaction.getType())&&
-                        isTxnDateOnOrBeforeTodayMinusY(dueDate, transaction.getTransactionDate().toLocalDate(),
-                                subTransactionTypeEntity.getIbbConfMinusDays())){
-                    //subtract debit after checking day condition: Withdrawal Value Date - T-y
-                    ibBalance = ibBalance.subtract(transaction.getAmount());
-                }
-                //else ignore
-            }else if(TransactionService.CREDIT.equals(transaction.getType())){
-                //add credit
-                ibBalance = ibBalance.add(transaction.getAmount());
-
-            }else if(TransactionService.DEBIT.equals(transaction.getType())) {
-                //subtract debit
-                ibBalance = ibBalance.subtract(transaction.getAmount());
-            }
-        }
-    }
-
-    private SubTransactionTypeEntity getSubTxnTypeEntityFromTxn(TransactionEntity transaction){
-        if(transaction.getSubTxnType() == null) return null;
-        Optional<SubTransactionTypeEntity> optsubTxn = subTransactionTypeRepository.findByIdentifier(transaction.getSubTxnType());
-        return (optsubTxn.isPresent() ? optsubTxn.get(): null);
-    }
-
-    private boolean canFindIBBForProduct(final ProductDefinitionEntity productDefinitionEntity) {
-        return productDefinitionEntity.getActive()
-                && !productDefinitionEntity.getType().equals(Type.SHARE.name())
-                && productDefinitionEntity.getInterest() != null
-                && productDefinitionEntity.getInterest() > 0.00D;
-    }
-
-    private boolean isTxnDateOnOrAfterTodayPlusX(LocalDate today, LocalDate txnDate, int x){
-
-        return false;
-    }
-
-    private boolean isTxnDateOnOrBeforeTodayMinusY(LocalDate today, LocalDate txnDate, int y){
-        return false;
+        return DateConverter.toIsoString(dueDate);
     }
-
 }
@@ -20,20 +20,18 @@ package org.apache.fineract.cn.deposit.service.internal.command.handler;
 
 import com.google.common.collect.Sets;
 import java.math.BigDecimal;
-import java.math.MathContext;
 import java.sql.Date;
 import java.time.Clock;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.Callable;
 import javax.transaction.Transactional;
 import org.apache.commons.lang.RandomStringUtils;
 import org.apache.fineract.cn.accounting.api.v1.domain.Account;
-import org.apache.fineract.cn.accounting.api.v1.domain.AccountEntry;
 import org.apache.fineract.cn.accounting.api.v1.domain.Creditor;
 import org.apache.fineract.cn.accounting.api.v1.domain.Debtor;
 import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
@@ -58,15 +56,21 @@ import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanc
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
 import org.apache.fineract.cn.deposit.service.internal.repository.TermEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.TermRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.DailyBalanceService;
+import org.apache.fineract.cn.deposit.service.internal.service.InterestAccrualService;
+import org.apache.fineract.cn.deposit.service.internal.service.InterestPayoutService;
+import org.apache.fineract.cn.deposit.service.internal.service.InterestRunService;
 import org.apache.fineract.cn.deposit.service.internal.service.helper.AccountingService;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.ContextAwareExecutor;
 import org.apache.fineract.cn.lang.DateConverter;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.threeten.extra.YearQuarter;
 
 @Aggregate
 public class InterestCalculator {
-  private static final int INTEREST_PRECISION = 7;
   private static final String ACTIVE = "ACTIVE";
   private final ProductDefinitionRepository productDefinitionRepository;
   private final ProductInstanceRepository productInstanceRepository;
@@ -74,6 +78,15 @@ public class InterestCalculator {
   private final AccountingService accountingService;
   private final AccruedInterestRepository accruedInterestRepository;
   private final DividendDistributionRepository dividendDistributionRepository;
+  private final InterestAccrualService interestAccrualService;
+  private final ContextAwareExecutor contextAwareExecutor;
+  private final InterestPayoutService interestPayoutService;
+  private final DailyBalanceService dailyBalanceService;
+  private final InterestRunService interestRunService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${config.batchedPayout}")
+  private Boolean batchedPayout;
 
   @Autowired
   public InterestCalculator(
@@ -82,7 +95,13 @@ public class InterestCalculator {
       final TermRepository termRepository,
       final AccountingService accountingService,
       final AccruedInterestRepository accruedInterestRepository,
-      final DividendDistributionRepository dividendDistributionRepository) {
+      final DividendDistributionRepository dividendDistributionRepository,
+      final InterestAccrualService interestAccrualService,
+      final ContextAwareExecutor contextAwareExecutor,
+      final InterestPayoutService interestPayoutService,
+      final DailyBalanceService dailyBalanceService,
+      final InterestRunService interestRunService,
+      final PlatformTransactionManager transactionManager) {
     super();
     this.productDefinitionRepository = productDefinitionRepository;
     this.productInstanceRepository = productInstanceRepository;
@@ -90,94 +109,46 @@ public class InterestCalculator {
     this.accruedInterestRepository = accruedInterestRepository;
     this.accountingService = accountingService;
     this.dividendDistributionRepository = dividendDistributionRepository;
+    this.interestAccrualService = interestAccrualService;
+    this.contextAwareExecutor = contextAwareExecutor;
+    this.interestPayoutService = interestPayoutService;
+    this.dailyBalanceService = dailyBalanceService;
+    this.interestRunService = interestRunService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
-  @Transactional
   @CommandHandler(logStart = CommandLogLevel.DEBUG, logFinish =  CommandLogLevel.DEBUG)
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.INTEREST_ACCRUED)
   public String process(final AccrualCommand accrualCommand) {
     final LocalDate accrualDate = accrualCommand.dueDate();
+    this.dailyBalanceService.refresh(accrualDate.minusDays(1L), accrualDate);
 
     final List<ProductDefinitionEntity> productDefinitions = this.productDefinitionRepository.findAll();
 
+    final List<Long> interestRunIds = new ArrayList<>();
+    final List<Callable<Void>> accrualTasks = new ArrayList<>();
     productDefinitions.forEach(productDefinitionEntity -> {
-      if (this.accruableProduct(productDefinitionEntity)) {
-
-        final ArrayList<Double> accruedValues = new ArrayList<>();
+      if (InterestAccrualService.accruableProduct(productDefinitionEntity)) {
+        final Long interestRunId =
+            this.interestRunService.start(productDefinitionEntity, accrualDate, InterestRunService.ACCRUAL);
+        if (interestRunId == null) {
+          return;
+        }
+        interestRunIds.add(interestRunId);
 
         final TermEntity term = this.termRepository.findByProductDefinition(productDefinitionEntity);
 
-        final List<ProductInstanceEntity> productInstances =
-            this.productInstanceRepository.findByProductDefinition(productDefinitionEntity);
-
-        productInstances.forEach(productInstanceEntity -> {
-          if (productInstanceEntity.getState().equals(ACTIVE)) {
-
-            final Account account = this.accountingService.findAccount(productInstanceEntity.getAccountIdentifier());
-
-            if (account.getBalance() > 0.00D) {
-              final BigDecimal balance = BigDecimal.valueOf(account.getBalance());
-
-              final BigDecimal rate = BigDecimal.valueOf(productDefinitionEntity.getInterest())
-                  .divide(BigDecimal.valueOf(100), INTEREST_PRECISION, BigDecimal.ROUND_HALF_EVEN);
-
-              final BigDecimal accruedInterest =
-                  accruedInterest(balance, rate,
-                      this.periodOfInterestPayable(term.getInterestPayable()), accrualDate.lengthOfYear());
-
-              if (accruedInterest.compareTo(BigDecimal.ZERO) > 0) {
-                final Double doubleValue =
-                    accruedInterest.setScale(5, BigDecimal.ROUND_HALF_EVEN).doubleValue();
-
-                accruedValues.add(doubleValue);
-
-                final Optional<AccruedInterestEntity> optionalAccruedInterest =
-                    this.accruedInterestRepository.findByCustomerAccountIdentifier(account.getIdentifier());
-                if (optionalAccruedInterest.isPresent()) {
-                  final AccruedInterestEntity accruedInterestEntity = optionalAccruedInterest.get();
-                  accruedInterestEntity.setAmount(accruedInterestEntity.getAmount() + doubleValue);
-                  this.accruedInterestRepository.save(accruedInterestEntity);
-                } else {
-                  final AccruedInterestEntity accruedInterestEntity = new AccruedInterestEntity();
-                  accruedInterestEntity.setAccrueAccountIdentifier(productDefinitionEntity.getAccrueAccountIdentifier());
-                  accruedInterestEntity.setCustomerAccountIdentifier(account.getIdentifier());
-                  accruedInterestEntity.setAmount(doubleValue);
-                  this.accruedInterestRepository.save(accruedInterestEntity);
-                }
-              }
-            }
-          }
-        });
-
-        final String roundedAmount =
-            BigDecimal.valueOf(accruedValues.parallelStream().reduce(0.00D, Double::sum))
-                .setScale(2, BigDecimal.ROUND_HALF_EVEN).toString();
-
-        final JournalEntry cashToAccrueJournalEntry = new JournalEntry();
-        cashToAccrueJournalEntry.setTransactionIdentifier(RandomStringUtils.randomAlphanumeric(32));
-        cashToAccrueJournalEntry.setTransactionDate(DateConverter.toIsoString(LocalDateTime.now(Clock.systemUTC())));
-        cashToAccrueJournalEntry.setTransactionType("INTR");
-        cashToAccrueJournalEntry.setClerk(UserContextHolder.checkedGetUser());
-        cashToAccrueJournalEntry.setNote("Daily accrual for product " + productDefinitionEntity.getIdentifier() + ".");
-
-        final Debtor cashDebtor = new Debtor();
-        cashDebtor.setAccountNumber(productDefinitionEntity.getCashAccountIdentifier());
-        cashDebtor.setAmount(roundedAmount);
-        cashToAccrueJournalEntry.setDebtors(Sets.newHashSet(cashDebtor));
-
-        final Creditor accrueCreditor = new Creditor();
-        accrueCreditor.setAccountNumber(productDefinitionEntity.getAccrueAccountIdentifier());
-        accrueCreditor.setAmount(roundedAmount);
-        cashToAccrueJournalEntry.setCreditors(Sets.newHashSet(accrueCreditor));
-
-        this.accountingService.post(cashToAccrueJournalEntry);
+        accrualTasks.addAll(this.interestAccrualService.accrualTasks(productDefinitionEntity, term, accrualDate,
+            this.contextAwareExecutor.getParallelism(), interestRunId));
       }
     });
 
+    this.contextAwareExecutor.invokeAll(accrualTasks);
+    interestRunIds.forEach(this.interestRunService::complete);
+
     return DateConverter.toIsoString(accrualDate);
   }
 
-  @Transactional
   @CommandHandler(logStart = CommandLogLevel.DEBUG, logFinish = CommandLogLevel.DEBUG)
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.INTEREST_PAYED)
   public String process(final PayInterestCommand payInterestCommand) {
@@ -188,6 +159,18 @@ public class InterestCalculator {
           && !productDefinitionEntity.getType().equals(Type.SHARE.name())) {
         final TermEntity term = this.termRepository.findByProductDefinition(productDefinitionEntity);
         if (this.shouldPayInterest(term.getInterestPayable(), payInterestCommand.date())) {
+          final Long interestRunId = this.interestRunService.start(
+              productDefinitionEntity, payInterestCommand.date(), InterestRunService.PAYOUT);
+          if (interestRunId == null) {
+            return;
+          }
+
+          if (this.batchedPayout) {
+            this.interestPayoutService.payout(productDefinitionEntity, interestRunId);
+            this.interestRunService.complete(interestRunId);
+            return;
+          }
+
           final List<ProductInstanceEntity> productInstanceEntities =
               this.productInstanceRepository.findByProductDefinition(productDefinitionEntity);
 
@@ -202,8 +185,10 @@ public class InterestCalculator {
                   BigDecimal.valueOf(accruedInterestEntity.getAmount())
                       .setScale(2, BigDecimal.ROUND_HALF_EVEN).toString();
 
+              final String customerAccount = accruedInterestEntity.getCustomerAccountIdentifier();
               final JournalEntry accrueToExpenseJournalEntry = new JournalEntry();
-              accrueToExpenseJournalEntry.setTransactionIdentifier(RandomStringUtils.randomAlphanumeric(32));
+              accrueToExpenseJournalEntry.setTransactionIdentifier(
+                  InterestRunService.journalEntryIdentifier(interestRunId, "payout/" + customerAccount + "/accrue"));
               accrueToExpenseJournalEntry.setTransactionDate(DateConverter.toIsoString(LocalDateTime.now(Clock.systemUTC())));
               accrueToExpenseJournalEntry.setTransactionType("INTR");
               accrueToExpenseJournalEntry.setClerk(UserContextHolder.checkedGetUser());
@@ -219,17 +204,23 @@ public class InterestCalculator {
               expenseCreditor.setAmount(roundedAmount);
               accrueToExpenseJournalEntry.setCreditors(Sets.newHashSet(expenseCreditor));
 
-              this.accruedInterestRepository.delete(accruedInterestEntity);
-
-              this.accountingService.post(accrueToExpenseJournalEntry);
-
-              this.payoutInterest(
+              this.interestRunService.post(interestRunId, accrueToExpenseJournalEntry);
+              this.interestRunService.post(interestRunId, this.payoutJournalEntry(
+                  InterestRunService.journalEntryIdentifier(interestRunId, "payout/" + customerAccount + "/customer"),
                   productDefinitionEntity.getExpenseAccountIdentifier(),
-                  accruedInterestEntity.getCustomerAccountIdentifier(),
+                  customerAccount,
                   roundedAmount
-              );
+              ));
+
+              // the accrued interest is only removed once both entries are booked, so a failed post is retried
+              this.transactionTemplate.execute(status -> {
+                this.accruedInterestRepository.delete(accruedInterestEntity);
+                this.dailyBalanceService.recordLedgerMovement(customerAccount, new BigDecimal(roundedAmount));
+                return null;
+              });
             }
           });
+          this.interestRunService.complete(interestRunId);
         }
       }
     });
@@ -248,44 +239,29 @@ public class InterestCalculator {
       if (productDefinitionEntity.getActive()) {
         final BigDecimal rate = BigDecimal.valueOf(dividendDistributionCommand.rate());
         final TermEntity term = this.termRepository.findByProductDefinition(productDefinitionEntity);
-        final List<String> dateRanges = this.dateRanges(dividendDistributionCommand.dueDate(), term.getInterestPayable());
+        final LocalDate dueDate = dividendDistributionCommand.dueDate();
+        final LocalDate firstDay = dueDate.minusDays(this.periodLength(dueDate, term.getInterestPayable()) - 2L);
+        final LocalDate now = LocalDate.now(Clock.systemUTC());
+        this.dailyBalanceService.refresh(firstDay, now);
 
         final List<ProductInstanceEntity> productInstanceEntities =
             this.productInstanceRepository.findByProductDefinition(productDefinitionEntity);
+        final Map<String, Account> ledgerAccounts =
+            this.accountingService.fetchAccountsOfLedger(productDefinitionEntity.getEquityLedgerIdentifier());
         productInstanceEntities.forEach((ProductInstanceEntity productInstanceEntity) -> {
           if (productInstanceEntity.getState().equals(ACTIVE)) {
 
-            final Account account =
-                this.accountingService.findAccount(productInstanceEntity.getAccountIdentifier());
-
-            final LocalDate startDate = dividendDistributionCommand.dueDate().plusDays(1);
-            final LocalDate now = LocalDate.now(Clock.systemUTC());
+            final Account account = Optional
+                .ofNullable(ledgerAccounts.get(productInstanceEntity.getAccountIdentifier()))
+                .orElseGet(() -> this.accountingService.findAccount(productInstanceEntity.getAccountIdentifier()));
 
-            final String findCurrentEntries = DateConverter.toIsoString(startDate) + ".." + DateConverter.toIsoString(now);
-            final List<AccountEntry> currentAccountEntries =
-                this.accountingService.fetchEntries(account.getIdentifier(), findCurrentEntries, Sort.Direction.ASC.name());
-
-            final BalanceHolder balanceHolder;
-            if (currentAccountEntries.isEmpty()) {
-              balanceHolder = new BalanceHolder(BigDecimal.valueOf(account.getBalance()));
-            } else {
-              final AccountEntry accountEntry = currentAccountEntries.get(0);
-              balanceHolder = new BalanceHolder(BigDecimal.valueOf(accountEntry.getBalance()).subtract(BigDecimal.valueOf(accountEntry.getAmount())));
-            }
+            final List<BigDecimal> endOfDayBalances = this.dailyBalanceService.endOfDayBalances(
+                productInstanceEntity.getAccountIdentifier(), BigDecimal.valueOf(account.getBalance()), firstDay, dueDate);
 
             final DividendHolder dividendHolder = new DividendHolder();
-            dateRanges.forEach(dateRange -> {
-              final List<AccountEntry> accountEntries =
-                  this.accountingService.fetchEntries(account.getIdentifier(), dateRange, Sort.Direction.DESC.name());
-              if (!accountEntries.isEmpty()) {
-                balanceHolder.setBalance(BigDecimal.valueOf(accountEntries.get(0).getBalance()));
-              }
-
-              final BigDecimal currentBalance = balanceHolder.getBalance();
-              dividendHolder.addAmount(
-                  accruedInterest(currentBalance, rate, 12, dividendDistributionCommand.dueDate().lengthOfYear())
-              );
-            });
+            endOfDayBalances.forEach(balance -> dividendHolder.addAmount(
+                InterestAccrualService.accruedInterest(balance, rate, 12, dueDate.lengthOfYear())
+            ));
 
             if (dividendHolder.getAmount().compareTo(BigDecimal.ZERO) > 0) {
 
@@ -312,11 +288,14 @@ public class InterestCalculator {
 
               this.accountingService.post(cashToExpenseJournalEntry);
 
-              this.payoutInterest(
+              this.accountingService.post(this.payoutJournalEntry(
+                  RandomStringUtils.randomAlphanumeric(32),
                   productDefinitionEntity.getExpenseAccountIdentifier(),
                   account.getIdentifier(),
                   roundedAmount
-              );
+              ));
+              this.dailyBalanceService.recordLedgerMovement(
+                  productInstanceEntity.getAccountIdentifier(), new BigDecimal(roundedAmount));
             }
           }
         });
@@ -335,17 +314,6 @@ public class InterestCalculator {
     return dividendDistributionCommand.productDefinition();
   }
 
-  private int periodOfInterestPayable(final String interestPayable) {
-    switch (InterestPayable.valueOf(interestPayable)) {
-      case MONTHLY:
-        return 12;
-      case QUARTERLY:
-        return 4;
-      default:
-        return 1;
-    }
-  }
-
   private boolean shouldPayInterest(final String interestPayable, final LocalDate date) {
     switch (InterestPayable.valueOf(interestPayable)) {
       case MONTHLY:
@@ -359,41 +327,14 @@ public class InterestCalculator {
     }
   }
 
-  private List<String> dateRanges(final LocalDate dueDate, final String interestPayable) {
-    final int pastDays;
+  private int periodLength(final LocalDate dueDate, final String interestPayable) {
     switch (InterestPayable.valueOf(interestPayable)) {
       case MONTHLY:
-        pastDays = dueDate.lengthOfMonth();
-        break;
+        return dueDate.lengthOfMonth();
       case QUARTERLY:
-        pastDays = YearQuarter.from(dueDate).lengthOfQuarter();
-        break;
+        return YearQuarter.from(dueDate).lengthOfQuarter();
       default:
-        pastDays = dueDate.lengthOfYear();
-    }
-
-    return IntStream
-        .range(1, pastDays)
-        .mapToObj(value -> {
-          final LocalDate before = dueDate.minusDays(value);
-          return DateConverter.toIsoString(before) + ".." + DateConverter.toIsoString(dueDate.minusDays(value - 1));
-        }).collect(Collectors.toList());
-  }
-
-  private class BalanceHolder {
-    private BigDecimal balance;
-
-    private BalanceHolder(final BigDecimal balance) {
-      super();
-      this.balance = balance;
-    }
-
-    private BigDecimal getBalance() {
-      return this.balance;
-    }
-
-    private void setBalance(final BigDecimal balance) {
-      this.balance = balance;
+        return dueDate.lengthOfYear();
     }
   }
 
@@ -414,16 +355,10 @@ public class InterestCalculator {
     }
   }
 
-  private boolean accruableProduct(final ProductDefinitionEntity productDefinitionEntity) {
-    return productDefinitionEntity.getActive()
-        && !productDefinitionEntity.getType().equals(Type.SHARE.name())
-        && productDefinitionEntity.getInterest() != null
-        && productDefinitionEntity.getInterest() > 0.00D;
-  }
-
-  private void payoutInterest(final String expenseAccount, final String customerAccount, final String amount) {
+  private JournalEntry payoutJournalEntry(final String transactionIdentifier, final String expenseAccount,
+                                          final String customerAccount, final String amount) {
     final JournalEntry expenseToCustomerJournalEntry = new JournalEntry();
-    expenseToCustomerJournalEntry.setTransactionIdentifier(RandomStringUtils.randomAlphanumeric(32));
+    expenseToCustomerJournalEntry.setTransactionIdentifier(transactionIdentifier);
     expenseToCustomerJournalEntry.setTransactionDate(DateConverter.toIsoString(LocalDateTime.now(Clock.systemUTC())));
     expenseToCustomerJournalEntry.setTransactionType("INTR");
     expenseToCustomerJournalEntry.setClerk(UserContextHolder.checkedGetUser());
@@ -439,25 +374,6 @@ public class InterestCalculator {
     customerCreditor.setAmount(amount);
     expenseToCustomerJournalEntry.setCreditors(Sets.newHashSet(customerCreditor));
 
-    this.accountingService.post(expenseToCustomerJournalEntry);
-
-  }
-
-  /**
-   * Copied from JavaMoney AnnualPercentageYield.calculate, and adjusted.
-   * @return the resulting amount, never null.
-   */
-  private static BigDecimal accruedInterest(
-      final BigDecimal amount,
-      final BigDecimal rate,
-      final int periods,
-      final int lengthOfYear) {
-    final BigDecimal baseFactor = rate.divide(BigDecimal.valueOf(periods),MathContext.DECIMAL64)
-        .add(BigDecimal.ONE);
-    final BigDecimal annualInterest = amount.multiply(baseFactor.pow(periods).subtract(BigDecimal.ONE));
-
-    return annualInterest
-            .divide(  BigDecimal.valueOf(lengthOfYear),
-                amount.scale() + INTEREST_PRECISION, BigDecimal.ROUND_HALF_EVEN);
+    return expenseToCustomerJournalEntry;
   }
 }
\ No newline at end of file
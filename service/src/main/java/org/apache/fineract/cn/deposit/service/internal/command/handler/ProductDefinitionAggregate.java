@@ -43,6 +43,7 @@ import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinit
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionRepository;
 import org.apache.fineract.cn.deposit.service.internal.repository.TermEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.TermRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.ProductDefinitionCache;
 import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.List;
@@ -69,6 +70,7 @@ public class ProductDefinitionAggregate {
   private final ChargeRepository chargeRepository;
   private final CurrencyRepository currencyRepository;
   private final TermRepository termRepository;
+  private final ProductDefinitionCache productDefinitionCache;
 
   @Autowired
   public ProductDefinitionAggregate(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
@@ -77,7 +79,8 @@ public class ProductDefinitionAggregate {
                                     final ProductDefinitionCommandRepository productDefinitionCommandRepository,
                                     final ChargeRepository chargeRepository,
                                     final CurrencyRepository currencyRepository,
-                                    final TermRepository termRepository) {
+                                    final TermRepository termRepository,
+                                    final ProductDefinitionCache productDefinitionCache) {
     super();
     this.logger = logger;
     this.productDefinitionRepository = productDefinitionRepository;
@@ -86,12 +89,14 @@ public class ProductDefinitionAggregate {
     this.chargeRepository = chargeRepository;
     this.currencyRepository = currencyRepository;
     this.termRepository = termRepository;
+    this.productDefinitionCache = productDefinitionCache;
   }
 
   @CommandHandler
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.POST_PRODUCT_DEFINITION)
   @Transactional
   public String createProductDefinition(final CreateProductDefinitionCommand createProductDefinitionCommand) {
+    this.productDefinitionCache.invalidate();
 
     final ProductDefinition productDefinition = createProductDefinitionCommand.productDefinition();
 
@@ -112,6 +117,7 @@ public class ProductDefinitionAggregate {
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.POST_PRODUCT_DEFINITION_COMMAND)
   @Transactional
   public String activateProductDefinition(final ActivateProductDefinitionCommand activateProductDefinitionCommand) {
+    this.productDefinitionCache.invalidate();
     final Optional<ProductDefinitionEntity> optionalProductDefinition = productDefinitionRepository.findByIdentifier(activateProductDefinitionCommand.identifier());
 
     if (optionalProductDefinition.isPresent()) {
@@ -140,6 +146,7 @@ public class ProductDefinitionAggregate {
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.POST_PRODUCT_DEFINITION_COMMAND)
   @Transactional
   public String deactivateProductDefinition(final DeactivateProductDefinitionCommand activateProductDefinitionCommand) {
+    this.productDefinitionCache.invalidate();
     final Optional<ProductDefinitionEntity> optionalProductDefinition = productDefinitionRepository.findByIdentifier(activateProductDefinitionCommand.identifier());
 
     if (optionalProductDefinition.isPresent()) {
@@ -168,6 +175,7 @@ public class ProductDefinitionAggregate {
   @CommandHandler
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.PUT_PRODUCT_DEFINITION)
   public String process(final UpdateProductDefinitionCommand updateProductDefinitionCommand) {
+    this.productDefinitionCache.invalidate();
     final ProductDefinition productDefinition = updateProductDefinitionCommand.productDefinition();
 
     final Optional<ProductDefinitionEntity> optionalProductDefinition =
@@ -199,6 +207,7 @@ public class ProductDefinitionAggregate {
   @CommandHandler
   @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.DELETE_PRODUCT_DEFINITION)
   public String process(final DeleteProductDefinitionCommand deleteProductDefinitionCommand) {
+    this.productDefinitionCache.invalidate();
     final String identifier = deleteProductDefinitionCommand.identifier();
 
     final Optional<ProductDefinitionEntity> optionalProductDefinition = this.productDefinitionRepository.findByIdentifier(identifier);
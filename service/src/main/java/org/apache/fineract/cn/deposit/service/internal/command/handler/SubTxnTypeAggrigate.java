@@ -30,6 +30,7 @@ import org.apache.fineract.cn.deposit.service.internal.command.UpdateSubTxnTypeC
 import org.apache.fineract.cn.deposit.service.internal.mapper.SubTransactionTypeMapper;
 import org.apache.fineract.cn.deposit.service.internal.repository.SubTransactionTypeEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.SubTransactionTypeRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.SubTxnTypeRegistry;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -41,14 +42,17 @@ public class SubTxnTypeAggrigate {
     private final Logger logger;
     private final LedgerManager ledgerManager;
     private final SubTransactionTypeRepository subTransactionTypeRepository;
+    private final SubTxnTypeRegistry subTxnTypeRegistry;
 
     @Autowired
     public SubTxnTypeAggrigate(@Qualifier(ServiceConstants.LOGGER_NAME) Logger logger,
                                LedgerManager ledgerManager,
-                               SubTransactionTypeRepository subTransactionTypeRepository) {
+                               SubTransactionTypeRepository subTransactionTypeRepository,
+                               SubTxnTypeRegistry subTxnTypeRegistry) {
         this.logger = logger;
         this.ledgerManager = ledgerManager;
         this.subTransactionTypeRepository = subTransactionTypeRepository;
+        this.subTxnTypeRegistry = subTxnTypeRegistry;
     }
 
     @CommandHandler
@@ -59,6 +63,7 @@ public class SubTxnTypeAggrigate {
 
         final SubTransactionTypeEntity subTransactionTypeEntity = SubTransactionTypeMapper.map(subTransactionType);
         this.subTransactionTypeRepository.save(subTransactionTypeEntity);
+        this.subTxnTypeRegistry.invalidate();
         return subTransactionTypeEntity.getIdentifier();
     }
 
@@ -73,6 +78,7 @@ public class SubTxnTypeAggrigate {
                         ServiceException.notFound("Sub transaction type {0} not found.", subTransactionType.getIdentifier()));
         SubTransactionTypeMapper.update(subTransactionTypeEntity, subTransactionType);
         this.subTransactionTypeRepository.save(subTransactionTypeEntity);
+        this.subTxnTypeRegistry.invalidate();
         return subTransactionTypeEntity.getIdentifier();
     }
 }
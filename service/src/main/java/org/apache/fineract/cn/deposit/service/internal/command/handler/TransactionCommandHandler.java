@@ -26,6 +26,7 @@ import org.apache.fineract.cn.deposit.api.v1.EventConstants;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionResponseData;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.command.TransactionCommand;
+import org.apache.fineract.cn.deposit.service.internal.command.TransactionPostedCommand;
 import org.apache.fineract.cn.deposit.service.internal.service.TransactionService;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -70,4 +71,11 @@ public class TransactionCommandHandler {
         }
     }
 
+    @NotNull
+    @CommandHandler(logStart = CommandLogLevel.DEBUG, logFinish = CommandLogLevel.DEBUG)
+    @EventEmitter(selectorName = EventConstants.SELECTOR_NAME, selectorValue = EventConstants.POST_TXN)
+    public TransactionResponseData transactionPosted(@NotNull TransactionPostedCommand command) {
+        return command.getResponse();
+    }
+
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.mapper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.apache.fineract.cn.deposit.api.v1.beat.domain.BeatJob;
+import org.apache.fineract.cn.deposit.service.internal.repository.BeatJobEntity;
+import org.apache.fineract.cn.lang.DateConverter;
+
+public class BeatJobMapper {
+
+  private BeatJobMapper() {
+    super();
+  }
+
+  /**
+   * Throughput and estimated completion refer to the current stage, every stage walks all accruable instances.
+   */
+  public static BeatJob map(final BeatJobEntity beatJobEntity, final Long processedItems) {
+    final BeatJob beatJob = new BeatJob();
+    beatJob.setIdentifier(beatJobEntity.getIdentifier());
+    beatJob.setDueDate(DateConverter.toIsoString(beatJobEntity.getDueDate()));
+    beatJob.setState(beatJobEntity.getState());
+    beatJob.setStage(beatJobEntity.getStage());
+    beatJob.setTotalItems(beatJobEntity.getTotalItems());
+    beatJob.setProcessedItems(processedItems);
+    beatJob.setErrorMessage(beatJobEntity.getErrorMessage());
+    beatJob.setCreatedOn(DateConverter.toIsoString(beatJobEntity.getCreatedOn()));
+    if (beatJobEntity.getStageStartedOn() != null) {
+      beatJob.setStageStartedOn(DateConverter.toIsoString(beatJobEntity.getStageStartedOn()));
+    }
+    if (beatJobEntity.getCompletedOn() != null) {
+      beatJob.setCompletedOn(DateConverter.toIsoString(beatJobEntity.getCompletedOn()));
+    }
+
+    if (BeatJob.State.RUNNING.name().equals(beatJobEntity.getState())
+        && beatJobEntity.getStageStartedOn() != null
+        && processedItems != null && processedItems > 0L) {
+      final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+      final long elapsedMillis = Math.max(1L, Duration.between(beatJobEntity.getStageStartedOn(), now).toMillis());
+      final double itemsPerSecond = processedItems * 1000.0D / elapsedMillis;
+      beatJob.setItemsPerSecond(itemsPerSecond);
+      final long remainingItems = Math.max(0L, beatJobEntity.getTotalItems() - processedItems);
+      beatJob.setEstimatedCompletion(
+          DateConverter.toIsoString(now.plusNanos((long) (remainingItems / itemsPerSecond * 1.0E9D))));
+    }
+
+    return beatJob;
+  }
+}
@@ -49,10 +49,9 @@ public class ChargeMapper {
     }
   }
 
-  public static Charge map(final ChargeEntity chargeEntity, final ActionRepository actionRepository) {
+  public static Charge map(final ChargeEntity chargeEntity, final String actionIdentifier) {
     final Charge charge = new Charge();
-    final ActionEntity actionEntity = actionRepository.findOne(chargeEntity.getActionId());
-    charge.setActionIdentifier(actionEntity.getIdentifier());
+    charge.setActionIdentifier(actionIdentifier);
     charge.setIncomeAccountIdentifier(chargeEntity.getIncomeAccountIdentifier());
     charge.setName(chargeEntity.getName());
     charge.setDescription(chargeEntity.getDescription());
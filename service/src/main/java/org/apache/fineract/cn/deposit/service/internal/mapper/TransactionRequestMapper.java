@@ -0,0 +1,48 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.mapper;
+
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestStatus;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRequestEntity;
+import org.apache.fineract.cn.lang.DateConverter;
+
+public class TransactionRequestMapper {
+
+  private TransactionRequestMapper() {
+    super();
+  }
+
+  public static TransactionRequestStatus map(final TransactionRequestEntity transactionRequestEntity) {
+    final TransactionRequestStatus transactionRequestStatus = new TransactionRequestStatus();
+    transactionRequestStatus.setIdentifier(transactionRequestEntity.getIdentifier());
+    transactionRequestStatus.setAction(transactionRequestEntity.getAction());
+    transactionRequestStatus.setAccountId(transactionRequestEntity.getAccountIdentifier());
+    transactionRequestStatus.setRoutingCode(transactionRequestEntity.getRoutingCode());
+    transactionRequestStatus.setExternalId(transactionRequestEntity.getExternalId());
+    transactionRequestStatus.setRequestCode(transactionRequestEntity.getRequestCode());
+    transactionRequestStatus.setState(transactionRequestEntity.getState());
+    transactionRequestStatus.setTransactionCode(transactionRequestEntity.getTransactionCode());
+    transactionRequestStatus.setErrorMessage(transactionRequestEntity.getErrorMessage());
+    transactionRequestStatus.setCreatedOn(DateConverter.toIsoString(transactionRequestEntity.getCreatedOn()));
+    if (transactionRequestEntity.getCompletedOn() != null) {
+      transactionRequestStatus.setCompletedOn(DateConverter.toIsoString(transactionRequestEntity.getCompletedOn()));
+    }
+    return transactionRequestStatus;
+  }
+}
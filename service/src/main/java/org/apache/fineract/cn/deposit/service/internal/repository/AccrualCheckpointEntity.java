@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+import org.apache.fineract.cn.postgresql.util.LocalDateConverter;
+import org.apache.fineract.cn.postgresql.util.LocalDateTimeConverter;
+
+@Entity
+@Table(name = "shed_accrual_checkpoints")
+public class AccrualCheckpointEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", nullable = false)
+  private Long id;
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(name = "product_definition_id", nullable = false)
+  private ProductDefinitionEntity productDefinition;
+  @Convert(converter = LocalDateConverter.class)
+  @Column(name = "due_date", nullable = false)
+  private LocalDate dueDate;
+  @Column(name = "shard", nullable = false)
+  private Integer shard;
+  @Column(name = "shard_count", nullable = false)
+  private Integer shardCount;
+  @Column(name = "last_instance_id", nullable = false)
+  private Long lastInstanceId;
+  @Column(name = "processed_instances", nullable = false)
+  private Long processedInstances;
+  @Column(name = "accrued_amount", nullable = false)
+  private Double accruedAmount;
+  @Column(name = "completed", nullable = false)
+  private Boolean completed;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "created_on", nullable = false)
+  private LocalDateTime createdOn;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "last_modified_on")
+  private LocalDateTime lastModifiedOn;
+
+  public AccrualCheckpointEntity() {
+    super();
+  }
+
+  public Long getId() {
+    return this.id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public ProductDefinitionEntity getProductDefinition() {
+    return this.productDefinition;
+  }
+
+  public void setProductDefinition(final ProductDefinitionEntity productDefinition) {
+    this.productDefinition = productDefinition;
+  }
+
+  public LocalDate getDueDate() {
+    return this.dueDate;
+  }
+
+  public void setDueDate(final LocalDate dueDate) {
+    this.dueDate = dueDate;
+  }
+
+  public Integer getShard() {
+    return this.shard;
+  }
+
+  public void setShard(final Integer shard) {
+    this.shard = shard;
+  }
+
+  public Integer getShardCount() {
+    return this.shardCount;
+  }
+
+  public void setShardCount(final Integer shardCount) {
+    this.shardCount = shardCount;
+  }
+
+  public Long getLastInstanceId() {
+    return this.lastInstanceId;
+  }
+
+  public void setLastInstanceId(final Long lastInstanceId) {
+    this.lastInstanceId = lastInstanceId;
+  }
+
+  public Long getProcessedInstances() {
+    return this.processedInstances;
+  }
+
+  public void setProcessedInstances(final Long processedInstances) {
+    this.processedInstances = processedInstances;
+  }
+
+  public Double getAccruedAmount() {
+    return this.accruedAmount;
+  }
+
+  public void setAccruedAmount(final Double accruedAmount) {
+    this.accruedAmount = accruedAmount;
+  }
+
+  public Boolean getCompleted() {
+    return this.completed;
+  }
+
+  public void setCompleted(final Boolean completed) {
+    this.completed = completed;
+  }
+
+  public LocalDateTime getCreatedOn() {
+    return this.createdOn;
+  }
+
+  public void setCreatedOn(final LocalDateTime createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public LocalDateTime getLastModifiedOn() {
+    return this.lastModifiedOn;
+  }
+
+  public void setLastModifiedOn(final LocalDateTime lastModifiedOn) {
+    this.lastModifiedOn = lastModifiedOn;
+  }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import javax.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface AccrualCheckpointRepository extends JpaRepository<AccrualCheckpointEntity, Long> {
+
+  List<AccrualCheckpointEntity> findByProductDefinitionAndDueDateOrderByShardAsc(
+      final ProductDefinitionEntity productDefinitionEntity, final LocalDate dueDate);
+
+  /**
+   * Locks the checkpoint until the end of the transaction, so that two workers of the same run take turns on its
+   * shard instead of accruing the same chunk.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c FROM AccrualCheckpointEntity c WHERE c.id = :id")
+  AccrualCheckpointEntity findForUpdate(@Param("id") final Long id);
+
+  @Query("SELECT COALESCE(SUM(c.processedInstances), 0) FROM AccrualCheckpointEntity c WHERE c.dueDate = :dueDate")
+  Long sumProcessedInstances(@Param("dueDate") final LocalDate dueDate);
+}
@@ -18,13 +18,24 @@
  */
 package org.apache.fineract.cn.deposit.service.internal.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface AccruedInterestRepository extends JpaRepository<AccruedInterestEntity, Long> {
+public interface AccruedInterestRepository extends JpaRepository<AccruedInterestEntity, Long>,
+    AccruedInterestRepositoryCustom {
 
   Optional<AccruedInterestEntity> findByCustomerAccountIdentifier(final String customerAccountIdentifier);
+
+  @Query("SELECT a FROM AccruedInterestEntity a, ProductInstanceEntity p "
+      + "WHERE p.accountIdentifier = a.customerAccountIdentifier AND p.productDefinition = :productDefinition "
+      + "ORDER BY a.id ASC")
+  List<AccruedInterestEntity> findPayable(@Param("productDefinition") final ProductDefinitionEntity productDefinitionEntity,
+                                          final Pageable pageable);
 }
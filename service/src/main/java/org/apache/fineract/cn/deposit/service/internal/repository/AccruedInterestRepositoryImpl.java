@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.util.List;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class AccruedInterestRepositoryImpl implements AccruedInterestRepositoryCustom {
+
+  private static final String UPSERT_ACCRUED_INTEREST =
+      "INSERT INTO shed_accrued_interests (accrue_account_identifier, customer_account_identifier, amount) " +
+      "VALUES (?, ?, ?) " +
+      "ON CONFLICT (accrue_account_identifier, customer_account_identifier) " +
+      "DO UPDATE SET amount = shed_accrued_interests.amount + EXCLUDED.amount";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public AccruedInterestRepositoryImpl(final DataSource dataSource) {
+    super();
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  public void accrue(final List<AccruedInterestEntity> accruedInterests, final int batchSize) {
+    if (accruedInterests.isEmpty()) {
+      return;
+    }
+
+    this.jdbcTemplate.batchUpdate(UPSERT_ACCRUED_INTEREST, accruedInterests, batchSize,
+        (preparedStatement, accruedInterestEntity) -> {
+          preparedStatement.setString(1, accruedInterestEntity.getAccrueAccountIdentifier());
+          preparedStatement.setString(2, accruedInterestEntity.getCustomerAccountIdentifier());
+          preparedStatement.setDouble(3, accruedInterestEntity.getAmount());
+        });
+  }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.apache.fineract.cn.postgresql.util.LocalDateConverter;
+import org.apache.fineract.cn.postgresql.util.LocalDateTimeConverter;
+
+@Entity
+@Table(name = "shed_beat_jobs")
+public class BeatJobEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", nullable = false)
+  private Long id;
+  @Column(name = "identifier", nullable = false, length = 32)
+  private String identifier;
+  @Convert(converter = LocalDateConverter.class)
+  @Column(name = "due_date", nullable = false)
+  private LocalDate dueDate;
+  @Column(name = "state", nullable = false, length = 32)
+  private String state;
+  @Column(name = "stage", length = 32)
+  private String stage;
+  @Column(name = "total_items", nullable = false)
+  private Long totalItems;
+  @Column(name = "error_message", length = 1024)
+  private String errorMessage;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "created_on", nullable = false)
+  private LocalDateTime createdOn;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "stage_started_on")
+  private LocalDateTime stageStartedOn;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "completed_on")
+  private LocalDateTime completedOn;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "lease_until")
+  private LocalDateTime leaseUntil;
+
+  public BeatJobEntity() {
+    super();
+  }
+
+  public Long getId() {
+    return this.id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public String getIdentifier() {
+    return this.identifier;
+  }
+
+  public void setIdentifier(final String identifier) {
+    this.identifier = identifier;
+  }
+
+  public LocalDate getDueDate() {
+    return this.dueDate;
+  }
+
+  public void setDueDate(final LocalDate dueDate) {
+    this.dueDate = dueDate;
+  }
+
+  public String getState() {
+    return this.state;
+  }
+
+  public void setState(final String state) {
+    this.state = state;
+  }
+
+  public String getStage() {
+    return this.stage;
+  }
+
+  public void setStage(final String stage) {
+    this.stage = stage;
+  }
+
+  public Long getTotalItems() {
+    return this.totalItems;
+  }
+
+  public void setTotalItems(final Long totalItems) {
+    this.totalItems = totalItems;
+  }
+
+  public String getErrorMessage() {
+    return this.errorMessage;
+  }
+
+  public void setErrorMessage(final String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public LocalDateTime getCreatedOn() {
+    return this.createdOn;
+  }
+
+  public void setCreatedOn(final LocalDateTime createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public LocalDateTime getStageStartedOn() {
+    return this.stageStartedOn;
+  }
+
+  public void setStageStartedOn(final LocalDateTime stageStartedOn) {
+    this.stageStartedOn = stageStartedOn;
+  }
+
+  public LocalDateTime getCompletedOn() {
+    return this.completedOn;
+  }
+
+  public void setCompletedOn(final LocalDateTime completedOn) {
+    this.completedOn = completedOn;
+  }
+
+  public LocalDateTime getLeaseUntil() {
+    return this.leaseUntil;
+  }
+
+  public void setLeaseUntil(final LocalDateTime leaseUntil) {
+    this.leaseUntil = leaseUntil;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface BeatJobRepository extends JpaRepository<BeatJobEntity, Long> {
+
+  Optional<BeatJobEntity> findByIdentifier(final String identifier);
+
+  /**
+   * Resets the job to pending if it is still in the given state and holds no lease, or only one that ran out. Of
+   * several concurrent claims of the same job exactly one succeeds.
+   * @return 1 if the job was claimed, 0 otherwise.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE BeatJobEntity b SET b.state = 'PENDING', b.stage = NULL, b.stageStartedOn = NULL, "
+      + "b.totalItems = 0, b.errorMessage = NULL, b.completedOn = NULL, b.leaseUntil = :leaseUntil "
+      + "WHERE b.id = :id AND b.state = :state AND (b.leaseUntil IS NULL OR b.leaseUntil < :now)")
+  int claim(@Param("id") final Long id, @Param("state") final String state, @Param("now") final LocalDateTime now,
+            @Param("leaseUntil") final LocalDateTime leaseUntil);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE BeatJobEntity b SET b.leaseUntil = :leaseUntil "
+      + "WHERE b.id = :id AND b.state IN ('PENDING', 'RUNNING')")
+  int renewLease(@Param("id") final Long id, @Param("leaseUntil") final LocalDateTime leaseUntil);
+}
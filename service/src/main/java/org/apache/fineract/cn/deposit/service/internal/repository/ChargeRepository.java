@@ -20,9 +20,12 @@ package org.apache.fineract.cn.deposit.service.internal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 
 
 public interface ChargeRepository extends JpaRepository<ChargeEntity, Long> {
   List<ChargeEntity> findByProductDefinition(final ProductDefinitionEntity productDefinitionEntity);
+
+  List<ChargeEntity> findByProductDefinitionIn(final Collection<ProductDefinitionEntity> productDefinitionEntities);
 }
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+public interface DailyBalanceRepositoryCustom {
+
+  /**
+   * Recomputes the movements booked through shed_transactions for every account and every day in the given range,
+   * both inclusive. Movements recorded with {@link #addLedgerMovements(Map, LocalDate, int)} are kept.
+   */
+  void refresh(final LocalDate from, final LocalDate to);
+
+  /**
+   * Adds amounts posted to customer accounts directly in the ledger, e.g. interest pay-outs, to the given day.
+   * Statements are sent to the database in JDBC batches of the given size.
+   */
+  void addLedgerMovements(final Map<String, BigDecimal> amounts, final LocalDate date, final int batchSize);
+}
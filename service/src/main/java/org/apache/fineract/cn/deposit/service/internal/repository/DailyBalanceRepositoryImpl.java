@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class DailyBalanceRepositoryImpl implements DailyBalanceRepositoryCustom {
+
+  // charge rows carry the parent's amount, the fee total of the parent row is used instead
+  private static final String REFRESH_TRANSACTION_MOVEMENTS =
+      "INSERT INTO shed_daily_balances (account_identifier, balance_date, transaction_movement, ledger_movement) " +
+      "SELECT t.account_identifier, CAST(t.transaction_date AS DATE), " +
+      "SUM(CASE WHEN t.a_type = 'CREDIT' THEN t.amount ELSE -t.amount END - COALESCE(t.fee_amount, 0)), 0 " +
+      "FROM shed_transactions t " +
+      "WHERE t.parent_txn_id IS NULL AND t.transaction_date >= ? AND t.transaction_date < ? " +
+      "GROUP BY t.account_identifier, CAST(t.transaction_date AS DATE) " +
+      "ON CONFLICT (account_identifier, balance_date) " +
+      "DO UPDATE SET transaction_movement = EXCLUDED.transaction_movement";
+
+  // a day whose transactions are gone keeps its ledger movement only
+  private static final String CLEAR_TRANSACTION_MOVEMENTS =
+      "UPDATE shed_daily_balances d SET transaction_movement = 0 " +
+      "WHERE d.balance_date >= ? AND d.balance_date <= ? AND d.transaction_movement <> 0 " +
+      "AND NOT EXISTS (SELECT 1 FROM shed_transactions t " +
+      "WHERE t.parent_txn_id IS NULL AND t.account_identifier = d.account_identifier " +
+      "AND t.transaction_date >= d.balance_date AND t.transaction_date < d.balance_date + 1)";
+
+  private static final String ADD_LEDGER_MOVEMENT =
+      "INSERT INTO shed_daily_balances (account_identifier, balance_date, transaction_movement, ledger_movement) " +
+      "VALUES (?, ?, 0, ?) " +
+      "ON CONFLICT (account_identifier, balance_date) " +
+      "DO UPDATE SET ledger_movement = shed_daily_balances.ledger_movement + EXCLUDED.ledger_movement";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public DailyBalanceRepositoryImpl(final DataSource dataSource) {
+    super();
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  public void refresh(final LocalDate from, final LocalDate to) {
+    this.jdbcTemplate.update(CLEAR_TRANSACTION_MOVEMENTS, Date.valueOf(from), Date.valueOf(to));
+    this.jdbcTemplate.update(REFRESH_TRANSACTION_MOVEMENTS,
+        Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1L).atStartOfDay()));
+  }
+
+  @Override
+  public void addLedgerMovements(final Map<String, BigDecimal> amounts, final LocalDate date, final int batchSize) {
+    if (amounts.isEmpty()) {
+      return;
+    }
+
+    final Date balanceDate = Date.valueOf(date);
+    this.jdbcTemplate.batchUpdate(ADD_LEDGER_MOVEMENT, new ArrayList<>(amounts.entrySet()), batchSize,
+        (preparedStatement, entry) -> {
+          preparedStatement.setString(1, entry.getKey());
+          preparedStatement.setDate(2, balanceDate);
+          preparedStatement.setBigDecimal(3, entry.getValue());
+        });
+  }
+}
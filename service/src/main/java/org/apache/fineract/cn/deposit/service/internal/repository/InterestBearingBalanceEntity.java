@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.apache.fineract.cn.postgresql.util.LocalDateConverter;
+
+@Entity
+@Table(name = "shed_interest_bearing_balances")
+public class InterestBearingBalanceEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", nullable = false)
+  private Long id;
+  @Column(name = "account_identifier", nullable = false, length = 34)
+  private String accountIdentifier;
+  @Convert(converter = LocalDateConverter.class)
+  @Column(name = "balance_date", nullable = false)
+  private LocalDate balanceDate;
+  @Column(name = "balance", nullable = false)
+  private BigDecimal balance;
+
+  public InterestBearingBalanceEntity() {
+    super();
+  }
+
+  public Long getId() {
+    return this.id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public String getAccountIdentifier() {
+    return this.accountIdentifier;
+  }
+
+  public void setAccountIdentifier(final String accountIdentifier) {
+    this.accountIdentifier = accountIdentifier;
+  }
+
+  public LocalDate getBalanceDate() {
+    return this.balanceDate;
+  }
+
+  public void setBalanceDate(final LocalDate balanceDate) {
+    this.balanceDate = balanceDate;
+  }
+
+  public BigDecimal getBalance() {
+    return this.balance;
+  }
+
+  public void setBalance(final BigDecimal balance) {
+    this.balance = balance;
+  }
+}
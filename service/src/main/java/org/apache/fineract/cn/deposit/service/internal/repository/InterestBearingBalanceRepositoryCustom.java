@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface InterestBearingBalanceRepositoryCustom {
+
+  /**
+   * @return the most recent interest-bearing balance of each given account that has one, keyed by account.
+   */
+  Map<String, InterestBearingBalanceEntity> findLatest(final Collection<String> accountIdentifiers);
+
+  /**
+   * Inserts the given balances, replacing existing ones of the same account and date.
+   * Statements are sent to the database in JDBC batches of the given size.
+   */
+  void upsert(final List<InterestBearingBalanceEntity> interestBearingBalances, final int batchSize);
+
+  /**
+   * Subtracts the amount from all stored balances of the account on or after the given date.
+   */
+  void subtract(final String accountIdentifier, final LocalDate from, final BigDecimal amount);
+}
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+public class InterestBearingBalanceRepositoryImpl implements InterestBearingBalanceRepositoryCustom {
+
+  private static final String FIND_LATEST =
+      "SELECT DISTINCT ON (account_identifier) account_identifier, balance_date, balance " +
+      "FROM shed_interest_bearing_balances " +
+      "WHERE account_identifier IN (:accountIdentifiers) " +
+      "ORDER BY account_identifier, balance_date DESC";
+
+  private static final String UPSERT_BALANCE =
+      "INSERT INTO shed_interest_bearing_balances (account_identifier, balance_date, balance) " +
+      "VALUES (?, ?, ?) " +
+      "ON CONFLICT (account_identifier, balance_date) " +
+      "DO UPDATE SET balance = EXCLUDED.balance";
+
+  private static final String SUBTRACT_BALANCE =
+      "UPDATE shed_interest_bearing_balances SET balance = balance - ? " +
+      "WHERE account_identifier = ? AND balance_date >= ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+  @Autowired
+  public InterestBearingBalanceRepositoryImpl(final DataSource dataSource) {
+    super();
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.namedParameterJdbcTemplate = new NamedParameterJdbcTemplate(this.jdbcTemplate);
+  }
+
+  @Override
+  public Map<String, InterestBearingBalanceEntity> findLatest(final Collection<String> accountIdentifiers) {
+    final HashMap<String, InterestBearingBalanceEntity> latest = new HashMap<>(accountIdentifiers.size());
+    if (accountIdentifiers.isEmpty()) {
+      return latest;
+    }
+
+    this.namedParameterJdbcTemplate.query(FIND_LATEST,
+        new MapSqlParameterSource("accountIdentifiers", accountIdentifiers),
+        (RowCallbackHandler) resultSet -> {
+          final InterestBearingBalanceEntity interestBearingBalanceEntity = new InterestBearingBalanceEntity();
+          interestBearingBalanceEntity.setAccountIdentifier(resultSet.getString("account_identifier"));
+          interestBearingBalanceEntity.setBalanceDate(resultSet.getDate("balance_date").toLocalDate());
+          interestBearingBalanceEntity.setBalance(resultSet.getBigDecimal("balance"));
+          latest.put(interestBearingBalanceEntity.getAccountIdentifier(), interestBearingBalanceEntity);
+        });
+    return latest;
+  }
+
+  @Override
+  public void upsert(final List<InterestBearingBalanceEntity> interestBearingBalances, final int batchSize) {
+    if (interestBearingBalances.isEmpty()) {
+      return;
+    }
+
+    this.jdbcTemplate.batchUpdate(UPSERT_BALANCE, interestBearingBalances, batchSize,
+        (preparedStatement, interestBearingBalanceEntity) -> {
+          preparedStatement.setString(1, interestBearingBalanceEntity.getAccountIdentifier());
+          preparedStatement.setDate(2, Date.valueOf(interestBearingBalanceEntity.getBalanceDate()));
+          preparedStatement.setBigDecimal(3, interestBearingBalanceEntity.getBalance());
+        });
+  }
+
+  @Override
+  public void subtract(final String accountIdentifier, final LocalDate from, final BigDecimal amount) {
+    this.jdbcTemplate.update(SUBTRACT_BALANCE, amount, accountIdentifier, Date.valueOf(from));
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface InterestRunJournalRepository extends JpaRepository<InterestRunJournalEntity, Long> {
+
+  List<InterestRunJournalEntity> findByInterestRunId(final Long interestRunId);
+
+  /**
+   * @return 1 if the identifier was claimed for the run, 0 if another run or worker holds it already.
+   */
+  @Modifying
+  @Query(value = "INSERT INTO shed_interest_run_journals (interest_run_id, transaction_identifier, created_on) "
+      + "VALUES (:interestRunId, :transactionIdentifier, :createdOn) "
+      + "ON CONFLICT (transaction_identifier) DO NOTHING", nativeQuery = true)
+  int claim(@Param("interestRunId") final Long interestRunId,
+            @Param("transactionIdentifier") final String transactionIdentifier,
+            @Param("createdOn") final Timestamp createdOn);
+}
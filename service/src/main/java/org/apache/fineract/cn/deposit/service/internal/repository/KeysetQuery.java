@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.persistence.EntityManager;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+
+/**
+ * Seeks past the last row of the previous page on a unique sort column instead of skipping rows with an offset, so
+ * every page costs the same no matter how deep into the listing it is.
+ */
+final class KeysetQuery {
+
+  private KeysetQuery() {
+    super();
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  static <T> List<T> fetch(final EntityManager entityManager, final Class<T> type, final Map<String, Object> filters,
+                           final String sortColumn, final boolean ascending, final Comparable after,
+                           final int limit) {
+    final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+    final CriteriaQuery<T> query = criteriaBuilder.createQuery(type);
+    final Root<T> root = query.from(type);
+
+    final List<Predicate> predicates = new ArrayList<>();
+    filters.forEach((attribute, value) -> predicates.add(criteriaBuilder.equal(root.get(attribute), value)));
+    final Path<Comparable> sortPath = root.get(sortColumn);
+    if (after != null) {
+      predicates.add(ascending
+          ? criteriaBuilder.greaterThan(sortPath, after)
+          : criteriaBuilder.lessThan(sortPath, after));
+    }
+
+    query.select(root)
+        .where(predicates.toArray(new Predicate[predicates.size()]))
+        .orderBy(ascending ? criteriaBuilder.asc(sortPath) : criteriaBuilder.desc(sortPath));
+    return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+  }
+}
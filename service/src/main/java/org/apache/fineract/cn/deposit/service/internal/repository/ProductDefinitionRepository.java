@@ -22,7 +22,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.util.Optional;
 
-public interface ProductDefinitionRepository extends JpaRepository<ProductDefinitionEntity, Long> {
+public interface ProductDefinitionRepository extends JpaRepository<ProductDefinitionEntity, Long>,
+    ProductDefinitionRepositoryCustom {
 
   Optional<ProductDefinitionEntity> findByIdentifier(final String identifier);
 }
@@ -18,16 +18,55 @@
  */
 package org.apache.fineract.cn.deposit.service.internal.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface ProductInstanceRepository extends JpaRepository<ProductInstanceEntity, Long> {
+public interface ProductInstanceRepository extends JpaRepository<ProductInstanceEntity, Long>,
+    ProductInstanceRepositoryCustom {
 
   List<ProductInstanceEntity> findByCustomerIdentifier(final String customerIdentifier);
 
   List<ProductInstanceEntity> findByProductDefinition(final ProductDefinitionEntity productDefinitionEntity);
 
+  Long countByProductDefinition(final ProductDefinitionEntity productDefinitionEntity);
+
+  List<ProductInstanceEntity> findByProductDefinitionAndState(final ProductDefinitionEntity productDefinitionEntity,
+                                                              final String state);
+
+  Long countByProductDefinitionInAndState(final Collection<ProductDefinitionEntity> productDefinitionEntities,
+                                          final String state);
+
+  @Query("SELECT p FROM ProductInstanceEntity p WHERE p.productDefinition = :productDefinition AND p.state = :state "
+      + "AND p.id > :lastId AND MOD(p.id, :shardCount) = :shard ORDER BY p.id ASC")
+  List<ProductInstanceEntity> findShardAfter(@Param("productDefinition") final ProductDefinitionEntity productDefinitionEntity,
+                                             @Param("state") final String state,
+                                             @Param("shard") final Integer shard,
+                                             @Param("shardCount") final Integer shardCount,
+                                             @Param("lastId") final Long lastId,
+                                             final Pageable pageable);
+
   Optional<ProductInstanceEntity> findByAccountIdentifier(final String identifier);
+
+  Long countByAccountIdentifier(final String identifier);
+
+  List<ProductInstanceEntity> findByAccountIdentifierIn(final Collection<String> identifiers);
+
+  /**
+   * Moves the last transaction date forward only, without loading the instance. Concurrent requests on the same
+   * account therefore never set it back. A new instance has no last transaction date yet.
+   */
+  @Transactional
+  @Modifying
+  @Query("UPDATE ProductInstanceEntity p SET p.lastTransactionDate = :transactionDate "
+      + "WHERE p.id = :id AND (p.lastTransactionDate IS NULL OR p.lastTransactionDate < :transactionDate)")
+  int markLastTransaction(@Param("id") final Long id, @Param("transactionDate") final LocalDateTime transactionDate);
 }
@@ -18,8 +18,12 @@
  */
 package org.apache.fineract.cn.deposit.service.internal.repository;
 
+import java.util.Collection;
+import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface TermRepository extends JpaRepository<TermEntity, Long> {
   TermEntity findByProductDefinition(final ProductDefinitionEntity productDefinition);
+
+  List<TermEntity> findByProductDefinitionIn(final Collection<ProductDefinitionEntity> productDefinitions);
 }
@@ -109,6 +109,10 @@ public class TransactionEntity {
     @JoinColumn(name = "parent_txn_id", nullable = false)
     private TransactionEntity parentTransaction;
 
+    // set by the migration on rows written twice before external ids were unique, new rows take the default
+    @Column(name = "legacy_duplicate", insertable = false, updatable = false)
+    private Boolean legacyDuplicate;
+
     public TransactionEntity() {
     }
 
@@ -291,4 +295,8 @@ public class TransactionEntity {
     public void setParentTransaction(TransactionEntity parentTransaction) {
         this.parentTransaction = parentTransaction;
     }
+
+    public Boolean getLegacyDuplicate() {
+        return legacyDuplicate;
+    }
 }
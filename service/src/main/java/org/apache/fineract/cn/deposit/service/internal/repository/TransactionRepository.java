@@ -19,17 +19,50 @@
 package org.apache.fineract.cn.deposit.service.internal.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TransactionRepository extends JpaRepository<TransactionEntity, Long> {
+public interface TransactionRepository extends JpaRepository<TransactionEntity, Long>, TransactionRepositoryCustom {
     Optional<TransactionEntity> findByIdentifier(final String identifier);
 
     List<TransactionEntity> findByAccountId(final String accountId);
 
+    /**
+     * Filters on the same COALESCE expression as shed_transactions_idempotency_idx, so the lookup is an index scan.
+     * A missing routing code is passed as an empty string. Rows flagged as legacy duplicates are left out, the first
+     * row written under the key stands for the transaction.
+     */
+    @Query("SELECT t FROM TransactionEntity t WHERE COALESCE(t.routingCode, '') = :routingCode "
+            + "AND t.externalId = :externalId AND t.parentTransaction IS NULL AND t.legacyDuplicate = FALSE")
+    List<TransactionEntity> findParentsByIdempotencyKey(@Param("routingCode") final String routingCode,
+                                                        @Param("externalId") final String externalId);
+
+    /**
+     * Bulk form of {@link #findParentsByIdempotencyKey(String, String)}. Returns every parent row whose routing code
+     * and external id are among the given ones, the caller picks the exact pairs.
+     */
+    @Query("SELECT t FROM TransactionEntity t WHERE COALESCE(t.routingCode, '') IN :routingCodes "
+            + "AND t.externalId IN :externalIds AND t.parentTransaction IS NULL AND t.legacyDuplicate = FALSE")
+    List<TransactionEntity> findParentsByIdempotencyKeys(@Param("routingCodes") final Collection<String> routingCodes,
+                                                         @Param("externalIds") final Collection<String> externalIds);
+
     List<TransactionEntity> findByAccountIdAndTransactionDateBetween(final String accountId, LocalDateTime fromDate,
                                                                      LocalDateTime toDate);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT t FROM TransactionEntity t WHERE t.accountId IN :accountIds AND t.parentTransaction IS NULL "
+            + "AND t.transactionDate >= :fromDate AND t.transactionDate < :toDate "
+            + "ORDER BY t.accountId, t.transactionDate, t.id")
+    Stream<TransactionEntity> streamParentTransactions(@Param("accountIds") final Collection<String> accountIds,
+                                                       @Param("fromDate") final LocalDateTime fromDate,
+                                                       @Param("toDate") final LocalDateTime toDate);
 }
 
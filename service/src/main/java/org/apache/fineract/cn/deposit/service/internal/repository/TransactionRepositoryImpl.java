@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+  private static final String RESERVE_IDS =
+      "SELECT nextval('shed_transactions_id_seq') FROM generate_series(1, ?)";
+
+  private static final String INSERT_TRANSACTION =
+      "INSERT INTO shed_transactions (id, identifier, account_identifier, routing_code, external_id, a_name, a_type, " +
+      "description, transaction_type, sub_txn_type, amount, fee_amount, state, customer_account_identifier, " +
+      "payable_account_identifier, nostro_account_identifier, transaction_date, expiration_date, parent_txn_id, " +
+      "created_by, created_on) " +
+      "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+  private static final String DELETE_CHARGES =
+      "DELETE FROM shed_transactions WHERE parent_txn_id IN " +
+      "(SELECT id FROM shed_transactions WHERE identifier = ? AND parent_txn_id IS NULL)";
+
+  private static final String DELETE_TRANSACTION =
+      "DELETE FROM shed_transactions WHERE identifier = ? AND parent_txn_id IS NULL";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  public TransactionRepositoryImpl(final DataSource dataSource) {
+    super();
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  @Override
+  public void insertBatch(final List<TransactionEntity> transactions, final int batchSize) {
+    if (transactions.isEmpty()) {
+      return;
+    }
+
+    final List<Long> reservedIds = this.jdbcTemplate.queryForList(RESERVE_IDS, Long.class, transactions.size());
+    final Map<TransactionEntity, Long> ids = new IdentityHashMap<>(transactions.size());
+    for (int i = 0; i < transactions.size(); i++) {
+      ids.put(transactions.get(i), reservedIds.get(i));
+    }
+
+    this.jdbcTemplate.batchUpdate(INSERT_TRANSACTION, transactions, batchSize,
+        (preparedStatement, transaction) -> {
+          preparedStatement.setLong(1, ids.get(transaction));
+          preparedStatement.setString(2, transaction.getIdentifier());
+          preparedStatement.setString(3, transaction.getAccountId());
+          preparedStatement.setString(4, transaction.getRoutingCode());
+          preparedStatement.setString(5, transaction.getExternalId());
+          preparedStatement.setString(6, transaction.getName());
+          preparedStatement.setString(7, transaction.getType());
+          preparedStatement.setString(8, transaction.getDescription());
+          preparedStatement.setString(9, transaction.getTransactionType().name());
+          preparedStatement.setString(10, transaction.getSubTxnType());
+          preparedStatement.setBigDecimal(11, transaction.getAmount());
+          preparedStatement.setBigDecimal(12, transaction.getFeeAmount());
+          preparedStatement.setString(13, transaction.getState().name());
+          preparedStatement.setString(14, transaction.getCustomerAccountIdentifier());
+          preparedStatement.setString(15, transaction.getPrepareAccountIdentifier());
+          preparedStatement.setString(16, transaction.getNostroAccountIdentifier());
+          preparedStatement.setTimestamp(17, toTimestamp(transaction.getTransactionDate()));
+          preparedStatement.setTimestamp(18, toTimestamp(transaction.getExpirationDate()));
+          if (transaction.getParentTransaction() != null) {
+            preparedStatement.setLong(19, ids.get(transaction.getParentTransaction()));
+          } else {
+            preparedStatement.setNull(19, Types.BIGINT);
+          }
+          preparedStatement.setString(20, transaction.getCreatedBy());
+          preparedStatement.setTimestamp(21, toTimestamp(transaction.getCreatedOn()));
+        });
+  }
+
+  @Override
+  public void deleteBatch(final List<TransactionEntity> transactions, final int batchSize) {
+    if (transactions.isEmpty()) {
+      return;
+    }
+
+    this.jdbcTemplate.batchUpdate(DELETE_CHARGES, transactions, batchSize,
+        (preparedStatement, transaction) -> preparedStatement.setString(1, transaction.getIdentifier()));
+    this.jdbcTemplate.batchUpdate(DELETE_TRANSACTION, transactions, batchSize,
+        (preparedStatement, transaction) -> preparedStatement.setString(1, transaction.getIdentifier()));
+  }
+
+  private static Timestamp toTimestamp(final LocalDateTime dateTime) {
+    return dateTime == null ? null : Timestamp.valueOf(dateTime);
+  }
+}
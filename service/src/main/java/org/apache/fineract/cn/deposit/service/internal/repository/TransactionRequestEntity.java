@@ -0,0 +1,173 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.time.LocalDateTime;
+import javax.persistence.Column;
+import javax.persistence.Convert;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import org.apache.fineract.cn.postgresql.util.LocalDateTimeConverter;
+
+@Entity
+@Table(name = "shed_transaction_requests")
+public class TransactionRequestEntity {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @Column(name = "id", nullable = false)
+  private Long id;
+  @Column(name = "identifier", nullable = false, length = 40)
+  private String identifier;
+  @Column(name = "action", nullable = false, length = 32)
+  private String action;
+  @Column(name = "account_identifier", length = 32)
+  private String accountIdentifier;
+  @Column(name = "routing_code", length = 256)
+  private String routingCode;
+  @Column(name = "external_id", length = 256)
+  private String externalId;
+  @Column(name = "request_code", length = 40)
+  private String requestCode;
+  @Column(name = "state", nullable = false, length = 32)
+  private String state;
+  @Column(name = "transaction_code", length = 100)
+  private String transactionCode;
+  @Column(name = "error_message", length = 1024)
+  private String errorMessage;
+  @Column(name = "created_by", nullable = false, length = 32)
+  private String createdBy;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "created_on", nullable = false)
+  private LocalDateTime createdOn;
+  @Convert(converter = LocalDateTimeConverter.class)
+  @Column(name = "completed_on")
+  private LocalDateTime completedOn;
+
+  public TransactionRequestEntity() {
+    super();
+  }
+
+  public Long getId() {
+    return this.id;
+  }
+
+  public void setId(final Long id) {
+    this.id = id;
+  }
+
+  public String getIdentifier() {
+    return this.identifier;
+  }
+
+  public void setIdentifier(final String identifier) {
+    this.identifier = identifier;
+  }
+
+  public String getAction() {
+    return this.action;
+  }
+
+  public void setAction(final String action) {
+    this.action = action;
+  }
+
+  public String getAccountIdentifier() {
+    return this.accountIdentifier;
+  }
+
+  public void setAccountIdentifier(final String accountIdentifier) {
+    this.accountIdentifier = accountIdentifier;
+  }
+
+  public String getRoutingCode() {
+    return this.routingCode;
+  }
+
+  public void setRoutingCode(final String routingCode) {
+    this.routingCode = routingCode;
+  }
+
+  public String getExternalId() {
+    return this.externalId;
+  }
+
+  public void setExternalId(final String externalId) {
+    this.externalId = externalId;
+  }
+
+  public String getRequestCode() {
+    return this.requestCode;
+  }
+
+  public void setRequestCode(final String requestCode) {
+    this.requestCode = requestCode;
+  }
+
+  public String getState() {
+    return this.state;
+  }
+
+  public void setState(final String state) {
+    this.state = state;
+  }
+
+  public String getTransactionCode() {
+    return this.transactionCode;
+  }
+
+  public void setTransactionCode(final String transactionCode) {
+    this.transactionCode = transactionCode;
+  }
+
+  public String getErrorMessage() {
+    return this.errorMessage;
+  }
+
+  public void setErrorMessage(final String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  public String getCreatedBy() {
+    return this.createdBy;
+  }
+
+  public void setCreatedBy(final String createdBy) {
+    this.createdBy = createdBy;
+  }
+
+  public LocalDateTime getCreatedOn() {
+    return this.createdOn;
+  }
+
+  public void setCreatedOn(final LocalDateTime createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public LocalDateTime getCompletedOn() {
+    return this.completedOn;
+  }
+
+  public void setCompletedOn(final LocalDateTime completedOn) {
+    this.completedOn = completedOn;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface TransactionRequestRepository extends JpaRepository<TransactionRequestEntity, Long> {
+
+  Optional<TransactionRequestEntity> findByIdentifier(final String identifier);
+
+  Optional<TransactionRequestEntity> findFirstByRequestCodeOrderByIdDesc(final String requestCode);
+
+  Optional<TransactionRequestEntity> findFirstByExternalIdAndRoutingCodeOrderByIdDesc(final String externalId,
+                                                                                     final String routingCode);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE TransactionRequestEntity r SET r.state = 'PROCESSING' WHERE r.id = :id AND r.state = 'PENDING'")
+  int startProcessing(@Param("id") final Long id);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE TransactionRequestEntity r SET r.state = 'COMPLETED', r.transactionCode = :transactionCode, "
+      + "r.completedOn = :completedOn WHERE r.id = :id AND r.state = 'PROCESSING'")
+  int complete(@Param("id") final Long id, @Param("transactionCode") final String transactionCode,
+               @Param("completedOn") final LocalDateTime completedOn);
+
+  @Transactional
+  @Modifying
+  @Query("UPDATE TransactionRequestEntity r SET r.state = 'FAILED', r.errorMessage = :errorMessage, "
+      + "r.completedOn = :completedOn WHERE r.id = :id AND r.state = 'PROCESSING'")
+  int fail(@Param("id") final Long id, @Param("errorMessage") final String errorMessage,
+           @Param("completedOn") final LocalDateTime completedOn);
+
+  @Transactional
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE TransactionRequestEntity r SET r.state = 'FAILED', r.errorMessage = :errorMessage, "
+      + "r.completedOn = :completedOn "
+      + "WHERE r.id = :id AND r.state IN ('PENDING', 'PROCESSING') AND r.createdOn < :createdBefore")
+  int expire(@Param("id") final Long id, @Param("errorMessage") final String errorMessage,
+             @Param("completedOn") final LocalDateTime completedOn,
+             @Param("createdBefore") final LocalDateTime createdBefore);
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang.StringUtils;
+import org.apache.fineract.cn.api.util.UserContextHolder;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestStatus;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionResponseData;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.command.TransactionCommand;
+import org.apache.fineract.cn.deposit.service.internal.mapper.TransactionRequestMapper;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRequestEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRequestRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.ContextAwareExecutor;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.RetryExecutor;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.TimeOrderedUuid;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Accepts transactions without holding the request thread for the ledger round trip. Each submission is recorded
+ * with the identifier its deposit or withdrawal will carry, and then processed on a bounded pool. When the queue of
+ * that pool is full the submission is recorded as failed right away instead of piling up. A request still pending or
+ * processing past the configured timeout, e.g. because the node running it went down, is reported as failed on lookup.
+ */
+@Service
+public class AsyncTransactionService {
+
+  private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+
+  private final Logger logger;
+  private final TransactionRequestRepository transactionRequestRepository;
+  private final CommandGateway commandGateway;
+  private final RetryExecutor retryExecutor;
+  private final ExecutorService executorService;
+  private final Integer asyncTxnTimeoutInSeconds;
+
+  @Autowired
+  public AsyncTransactionService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                                 final TransactionRequestRepository transactionRequestRepository,
+                                 final CommandGateway commandGateway,
+                                 final RetryExecutor retryExecutor,
+                                 @Value("${config.asyncTxnThreads}") final Integer asyncTxnThreads,
+                                 @Value("${config.asyncTxnQueueCapacity}") final Integer asyncTxnQueueCapacity,
+                                 @Value("${config.asyncTxnTimeoutInSeconds}") final Integer asyncTxnTimeoutInSeconds) {
+    super();
+    this.logger = logger;
+    this.transactionRequestRepository = transactionRequestRepository;
+    this.commandGateway = commandGateway;
+    this.retryExecutor = retryExecutor;
+    final int threads = Math.max(1, asyncTxnThreads);
+    this.executorService = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, asyncTxnQueueCapacity)));
+    this.asyncTxnTimeoutInSeconds = asyncTxnTimeoutInSeconds;
+  }
+
+  public TransactionRequestStatus submit(final TransactionRequestData request, final TransactionActionType action) {
+    final TransactionRequestEntity transactionRequestEntity = new TransactionRequestEntity();
+    transactionRequestEntity.setIdentifier(TimeOrderedUuid.next().toString());
+    transactionRequestEntity.setAction(action.name());
+    transactionRequestEntity.setAccountIdentifier(
+        action == TransactionActionType.TRANSFER ? request.getFromAccountId() : request.getAccountId());
+    transactionRequestEntity.setRoutingCode(request.getRoutingCode());
+    transactionRequestEntity.setExternalId(request.getExternalId());
+    transactionRequestEntity.setRequestCode(request.getRequestCode());
+    transactionRequestEntity.setState(TransactionRequestStatus.State.PENDING.name());
+    transactionRequestEntity.setCreatedBy(UserContextHolder.checkedGetUser());
+    transactionRequestEntity.setCreatedOn(LocalDateTime.now(Clock.systemUTC()));
+    final TransactionRequestEntity savedTransactionRequestEntity =
+        this.transactionRequestRepository.save(transactionRequestEntity);
+
+    try {
+      this.executorService.submit(ContextAwareExecutor.withContext(() -> {
+        this.run(savedTransactionRequestEntity.getId(), request, action);
+        return null;
+      }));
+    } catch (final RejectedExecutionException ex) {
+      this.logger.warn("Transaction request {} rejected, too many requests pending.",
+          savedTransactionRequestEntity.getIdentifier());
+      return TransactionRequestMapper.map(
+          this.fail(savedTransactionRequestEntity, "Too many transaction requests pending, try again later."));
+    }
+
+    return TransactionRequestMapper.map(savedTransactionRequestEntity);
+  }
+
+  public Optional<TransactionRequestStatus> findTransactionRequest(final String requestCode, final String routingCode,
+                                                                   final String externalId) {
+    final Optional<TransactionRequestEntity> transactionRequestEntity = requestCode != null
+        ? this.transactionRequestRepository.findFirstByRequestCodeOrderByIdDesc(requestCode)
+        : this.transactionRequestRepository.findFirstByExternalIdAndRoutingCodeOrderByIdDesc(externalId, routingCode);
+    return transactionRequestEntity.map(this::expireIfStale).map(TransactionRequestMapper::map);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executorService.shutdownNow();
+  }
+
+  private void run(final Long transactionRequestId, final TransactionRequestData request,
+                   final TransactionActionType action) {
+    if (this.transactionRequestRepository.startProcessing(transactionRequestId) == 0) {
+      this.logger.info("Transaction request {} expired before it was processed.", transactionRequestId);
+      return;
+    }
+    final TransactionRequestEntity transactionRequestEntity =
+        this.transactionRequestRepository.findOne(transactionRequestId);
+
+    // only a request with external id that lost the insert race finds the winner's result on retry
+    final boolean replayable = StringUtils.isNotBlank(request.getExternalId());
+    final TransactionResponseData response;
+    try {
+      response = this.retryExecutor.execute(() -> this.commandGateway.process(
+          new TransactionCommand(request, action, transactionRequestEntity.getIdentifier()),
+          TransactionResponseData.class).get(), ex -> replayable && ex instanceof DataIntegrityViolationException);
+    } catch (final Exception ex) {
+      final Throwable failure = ex instanceof ExecutionException && ex.getCause() != null ? ex.getCause() : ex;
+      this.logger.info("Transaction request {} failed: {}", transactionRequestEntity.getIdentifier(),
+          failure.getMessage());
+      if (this.transactionRequestRepository.fail(transactionRequestId, truncate(String.valueOf(failure.getMessage())),
+          LocalDateTime.now(Clock.systemUTC())) == 0) {
+        this.logger.warn("Transaction request {} failed after it had been marked as failed already.",
+            transactionRequestEntity.getIdentifier());
+      }
+      return;
+    }
+
+    // the outcome is only recorded while the request is processing, a lookup may have expired it in the meantime
+    if (this.transactionRequestRepository.complete(transactionRequestId, response.getTransactionCode(),
+        LocalDateTime.now(Clock.systemUTC())) == 0) {
+      this.logger.warn("Transaction request {} was booked as {} after it had been marked as failed.",
+          transactionRequestEntity.getIdentifier(), response.getTransactionCode());
+    }
+  }
+
+  private TransactionRequestEntity expireIfStale(final TransactionRequestEntity transactionRequestEntity) {
+    final String state = transactionRequestEntity.getState();
+    if (!TransactionRequestStatus.State.PENDING.name().equals(state)
+        && !TransactionRequestStatus.State.PROCESSING.name().equals(state)) {
+      return transactionRequestEntity;
+    }
+
+    final LocalDateTime now = LocalDateTime.now(Clock.systemUTC());
+    final LocalDateTime createdBefore = now.minusSeconds(this.asyncTxnTimeoutInSeconds);
+    if (!transactionRequestEntity.getCreatedOn().isBefore(createdBefore)) {
+      return transactionRequestEntity;
+    }
+
+    if (this.transactionRequestRepository.expire(transactionRequestEntity.getId(),
+        "Transaction request did not finish in time, it may or may not have been booked.", now, createdBefore) > 0) {
+      this.logger.warn("Transaction request {} still {} after {} seconds, marked as failed.",
+          transactionRequestEntity.getIdentifier(), state, this.asyncTxnTimeoutInSeconds);
+    }
+    return this.transactionRequestRepository.findOne(transactionRequestEntity.getId());
+  }
+
+  private TransactionRequestEntity fail(final TransactionRequestEntity transactionRequestEntity,
+                                        final String errorMessage) {
+    transactionRequestEntity.setState(TransactionRequestStatus.State.FAILED.name());
+    transactionRequestEntity.setErrorMessage(truncate(errorMessage));
+    transactionRequestEntity.setCompletedOn(LocalDateTime.now(Clock.systemUTC()));
+    return this.transactionRequestRepository.save(transactionRequestEntity);
+  }
+
+  private static String truncate(final String errorMessage) {
+    return errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH
+        ? errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH) : errorMessage;
+  }
+}
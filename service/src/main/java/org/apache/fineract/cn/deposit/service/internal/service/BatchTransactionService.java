@@ -0,0 +1,354 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import com.google.common.collect.Lists;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.commons.lang.StringUtils;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
+import org.apache.fineract.cn.accounting.api.v1.domain.Account;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.ActionState;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.BatchTransactionResult;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionResponseData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionTypeEnum;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.command.TransactionPostedCommand;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.ContextAwareExecutor;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.JournalEntryOutcomeUnknownException;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class BatchTransactionService {
+
+  private final Logger logger;
+  private final LedgerManager ledgerManager;
+  private final TransactionService transactionService;
+  private final TransactionRepository transactionRepository;
+  private final ProductInstanceRepository productInstanceRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final CommandGateway commandGateway;
+  private final ContextAwareExecutor ledgerExecutor;
+
+  @Value("${config.txnBatchMaxSize}")
+  private Integer txnBatchMaxSize;
+
+  @Value("${config.txnBatchChunkSize}")
+  private Integer txnBatchChunkSize;
+
+  @Autowired
+  public BatchTransactionService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                                 final LedgerManager ledgerManager,
+                                 final TransactionService transactionService,
+                                 final TransactionRepository transactionRepository,
+                                 final ProductInstanceRepository productInstanceRepository,
+                                 final PlatformTransactionManager transactionManager,
+                                 final CommandGateway commandGateway,
+                                 @Value("${config.txnBatchLedgerParallelism}") final Integer ledgerParallelism) {
+    super();
+    this.logger = logger;
+    this.ledgerManager = ledgerManager;
+    this.transactionService = transactionService;
+    this.transactionRepository = transactionRepository;
+    this.productInstanceRepository = productInstanceRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.commandGateway = commandGateway;
+    this.ledgerExecutor = new ContextAwareExecutor(logger, ledgerParallelism);
+  }
+
+  /**
+   * Deposits to or withdraws from many accounts in one call. Every item is validated on its own, and an invalid item
+   * is rejected without affecting the others. Accounts are looked up concurrently and already processed items are
+   * found with one query per chunk. Valid items are persisted in chunks, each chunk in its own transaction with one
+   * JDBC batch insert. Once a chunk is committed, its journal entries are posted concurrently, one per item and
+   * identified like the transaction row, since the ledger accepts a single journal entry per call. Each posted item
+   * is announced with the same event as a single transaction.
+   *
+   * An item whose journal entry was refused is deleted again and rejected. An item whose post may have reached the
+   * ledger, a timeout or a server error, keeps its rows and is reported as unknown, so that submitting it again with
+   * the same external id does not book it twice. A chunk that cannot be inserted is rejected as a whole without
+   * posting anything. If the service stops between persisting a chunk and posting it, the rows and the last
+   * transaction date of their instances stay without a journal entry; like unknown items, they are found by a retry
+   * with the same external id and have to be reconciled with the ledger by transaction code.
+   */
+  public List<BatchTransactionResult> process(final List<TransactionRequestData> requests,
+                                              final TransactionActionType action) {
+    final TransactionTypeEnum txnType = this.transactionType(action);
+    if (requests.size() > this.txnBatchMaxSize) {
+      throw ServiceException.badRequest("Batch of {0} transactions exceeds the maximum of {1}.",
+          requests.size(), this.txnBatchMaxSize);
+    }
+
+    final BatchTransactionResult[] results = new BatchTransactionResult[requests.size()];
+    final List<BatchItem> items = this.prepare(requests, action, txnType, results);
+
+    Lists.partition(items, this.txnBatchChunkSize).forEach(chunk -> {
+      try {
+        this.transactionTemplate.execute(status -> {
+          this.persistChunk(chunk);
+          return null;
+        });
+      } catch (final RuntimeException ex) {
+        this.logger.warn("Could not persist chunk of {} {} transactions.", chunk.size(), txnType.name(), ex);
+        chunk.forEach(item -> results[item.index] = BatchTransactionResult.rejected(item.index, item.request,
+            this.message(ex)));
+        return;
+      }
+
+      this.postChunk(chunk, txnType, results);
+    });
+
+    return Arrays.asList(results);
+  }
+
+  private TransactionTypeEnum transactionType(final TransactionActionType action) {
+    switch (action) {
+      case DEPOSIT:
+        return TransactionTypeEnum.DEPOSIT;
+      case WITHDRAWAL:
+        return TransactionTypeEnum.WITHDRAWAL;
+      default:
+        throw ServiceException.badRequest("Action {0} is not supported for batches.", action.name());
+    }
+  }
+
+  private List<BatchItem> prepare(final List<TransactionRequestData> requests, final TransactionActionType action,
+                                  final TransactionTypeEnum txnType,
+                                  final BatchTransactionResult[] results) {
+    final List<String> accountIds = requests.stream()
+        .map(TransactionRequestData::getAccountId)
+        .distinct()
+        .collect(Collectors.toList());
+
+    final Map<String, ProductInstanceEntity> instances =
+        this.productInstanceRepository.findByAccountIdentifierIn(accountIds).stream()
+            .collect(Collectors.toMap(ProductInstanceEntity::getAccountIdentifier, Function.identity()));
+
+    final Map<String, Account> accounts = new ConcurrentHashMap<>();
+    final Map<String, RuntimeException> accountErrors = new ConcurrentHashMap<>();
+    final List<Callable<Void>> lookups = new ArrayList<>();
+    accountIds.forEach(accountId -> {
+      try {
+        this.transactionService.validateAccess(accountId, txnType);
+        if (!instances.containsKey(accountId)) {
+          throw ServiceException.notFound("Account {0} not found", accountId);
+        }
+        lookups.add(() -> {
+          try {
+            accounts.put(accountId, this.ledgerManager.findAccount(accountId));
+          } catch (final RuntimeException ex) {
+            accountErrors.put(accountId, ex);
+          }
+          return null;
+        });
+      } catch (final RuntimeException ex) {
+        accountErrors.put(accountId, ex);
+      }
+    });
+    this.ledgerExecutor.invokeAll(lookups);
+    final Map<String, List<TransactionEntity>> processedByKey = this.findProcessed(requests);
+
+    final Map<String, Double> withdrawableBalances = new HashMap<>();
+    final Set<String> idempotencyKeys = new HashSet<>();
+    final List<BatchItem> items = new ArrayList<>(requests.size());
+    for (int index = 0; index < requests.size(); index++) {
+      final TransactionRequestData request = requests.get(index);
+      final String accountId = request.getAccountId();
+      try {
+        if (accountErrors.containsKey(accountId)) {
+          throw accountErrors.get(accountId);
+        }
+        final String idempotencyKey = idempotencyKey(request.getRoutingCode(), request.getExternalId());
+        if (request.getExternalId() != null && !idempotencyKeys.add(idempotencyKey)) {
+          throw ServiceException.conflict("External id {0} is used more than once in this batch.",
+              request.getExternalId());
+        }
+        final List<TransactionEntity> processed = StringUtils.isBlank(request.getExternalId())
+            ? Collections.emptyList()
+            : this.transactionService.checkProcessed(request, action,
+                processedByKey.getOrDefault(idempotencyKey, Collections.emptyList()));
+        if (!processed.isEmpty()) {
+          results[index] = BatchTransactionResult.accepted(index, request,
+              TransactionService.transactionCode(processed), processed.get(0).getTransactionDate());
+          continue;
+        }
+        final TransactionService.AccountWrapper accountWrapper =
+            this.transactionService.buildAccountWrapper(request, accounts.get(accountId), instances.get(accountId));
+        final TransactionService.PreparedTransaction prepared;
+        if (txnType == TransactionTypeEnum.WITHDRAWAL) {
+          final Double withdrawableBalance =
+              withdrawableBalances.computeIfAbsent(accountId, key -> accountWrapper.getWithdrawableBalance());
+          this.transactionService.validateWithdrawable(request, withdrawableBalance);
+          prepared = this.transactionService.prepareWithdrawal(request, accountWrapper,
+              this.transactionService.getCharges(accountWrapper.getProductDefinition(), txnType), this.now(), accountId);
+          final BigDecimal fee = prepared.getTxn().getFeeAmount();
+          withdrawableBalances.put(accountId, withdrawableBalance - request.getAmount().getAmount().doubleValue()
+              - (fee != null ? fee.doubleValue() : 0.0D));
+        } else {
+          prepared = this.transactionService.prepareDeposit(request, accountWrapper,
+              this.transactionService.getCharges(accountWrapper.getProductDefinition(), txnType), this.now(), accountId);
+        }
+        items.add(new BatchItem(index, request, accountWrapper, prepared));
+      } catch (final RuntimeException ex) {
+        results[index] = BatchTransactionResult.rejected(index, request, this.message(ex));
+      }
+    }
+    return items;
+  }
+
+  private Map<String, List<TransactionEntity>> findProcessed(final List<TransactionRequestData> requests) {
+    final List<TransactionRequestData> replayable = requests.stream()
+        .filter(request -> StringUtils.isNotBlank(request.getExternalId()))
+        .collect(Collectors.toList());
+    final Map<String, List<TransactionEntity>> processedByKey = new HashMap<>();
+    Lists.partition(replayable, this.txnBatchChunkSize).forEach(chunk -> {
+      final Set<String> routingCodes = chunk.stream()
+          .map(request -> StringUtils.defaultString(request.getRoutingCode()))
+          .collect(Collectors.toSet());
+      final Set<String> externalIds = chunk.stream()
+          .map(TransactionRequestData::getExternalId)
+          .collect(Collectors.toSet());
+      this.transactionRepository.findParentsByIdempotencyKeys(routingCodes, externalIds).forEach(txn ->
+          processedByKey.computeIfAbsent(idempotencyKey(txn.getRoutingCode(), txn.getExternalId()),
+              key -> new ArrayList<>()).add(txn));
+    });
+    return processedByKey;
+  }
+
+  private static String idempotencyKey(final String routingCode, final String externalId) {
+    return StringUtils.defaultString(routingCode) + "/" + externalId;
+  }
+
+  private void persistChunk(final List<BatchItem> chunk) {
+    final List<TransactionEntity> transactions = new ArrayList<>();
+    final Map<Long, LocalDateTime> lastTransactionDates = new HashMap<>();
+    chunk.forEach(item -> {
+      final TransactionEntity txn = item.prepared.getTxn();
+      transactions.add(txn);
+      transactions.addAll(item.prepared.getChargeTxns());
+      lastTransactionDates.merge(item.accountWrapper.getInstance().getId(), txn.getTransactionDate(),
+          (current, candidate) -> candidate.isAfter(current) ? candidate : current);
+    });
+
+    this.transactionRepository.insertBatch(transactions, this.txnBatchChunkSize);
+    lastTransactionDates.forEach(this.productInstanceRepository::markLastTransaction);
+  }
+
+  private void postChunk(final List<BatchItem> chunk, final TransactionTypeEnum txnType,
+                         final BatchTransactionResult[] results) {
+    final List<Callable<RuntimeException>> posts = chunk.stream()
+        .map(item -> (Callable<RuntimeException>) () -> {
+          try {
+            this.transactionService.postJournalEntry(item.prepared.getJournalEntry());
+            return null;
+          } catch (final RuntimeException ex) {
+            return ex;
+          }
+        })
+        .collect(Collectors.toList());
+    final List<RuntimeException> failures = this.ledgerExecutor.invokeAll(posts);
+
+    final List<TransactionEntity> failed = new ArrayList<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      final BatchItem item = chunk.get(i);
+      final RuntimeException failure = failures.get(i);
+      final TransactionEntity txn = item.prepared.getTxn();
+      if (failure instanceof JournalEntryOutcomeUnknownException) {
+        this.logger.warn("Outcome of {} transaction {} unknown, keeping it.", txnType.name(), txn.getIdentifier(),
+            failure);
+        results[item.index] = BatchTransactionResult.unknown(item.index, item.request, txn.getIdentifier(),
+            this.message(failure));
+      } else if (failure != null) {
+        this.logger.warn("Could not post {} transaction {}.", txnType.name(), txn.getIdentifier(), failure);
+        failed.add(txn);
+        results[item.index] = BatchTransactionResult.rejected(item.index, item.request, this.message(failure));
+      } else {
+        results[item.index] = BatchTransactionResult.accepted(item.index, item.request, txn.getIdentifier(),
+            txn.getTransactionDate());
+        this.commandGateway.process(new TransactionPostedCommand(TransactionResponseData.build(
+            item.request.getRoutingCode(), item.request.getExternalId(), item.request.getRequestCode(),
+            ActionState.ACCEPTED, null, txn.getIdentifier(), txn.getTransactionDate())));
+      }
+    }
+
+    if (!failed.isEmpty()) {
+      this.transactionTemplate.execute(status -> {
+        this.transactionRepository.deleteBatch(failed, this.txnBatchChunkSize);
+        return null;
+      });
+    }
+  }
+
+  private String message(final RuntimeException ex) {
+    return ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.ledgerExecutor.shutdown();
+  }
+
+  private LocalDateTime now() {
+    return LocalDateTime.now(Clock.systemUTC());
+  }
+
+  private static class BatchItem {
+    private final int index;
+    private final TransactionRequestData request;
+    private final TransactionService.AccountWrapper accountWrapper;
+    private final TransactionService.PreparedTransaction prepared;
+
+    private BatchItem(final int index, final TransactionRequestData request,
+                      final TransactionService.AccountWrapper accountWrapper,
+                      final TransactionService.PreparedTransaction prepared) {
+      this.index = index;
+      this.request = request;
+      this.accountWrapper = accountWrapper;
+      this.prepared = prepared;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.command.gateway.CommandGateway;
+import org.apache.fineract.cn.deposit.api.v1.beat.domain.BeatJob;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.command.AccrualCommand;
+import org.apache.fineract.cn.deposit.service.internal.command.CalculateIBBCommand;
+import org.apache.fineract.cn.deposit.service.internal.command.PayInterestCommand;
+import org.apache.fineract.cn.deposit.service.internal.mapper.BeatJobMapper;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccrualCheckpointRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.BeatJobEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.BeatJobRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestBearingBalanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.ContextAwareExecutor;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs the interest bearing balance, accrual and pay-out stages of a beat in the background, so that the beat
+ * listener can acknowledge the beat right away. A failed job is run again if the same beat is published again, and
+ * so is a pending or running job whose lease ran out because its node stopped renewing it. Jobs are claimed with a
+ * conditional update, so of several concurrent publishes of the same beat only one runs the job.
+ */
+@Service
+public class BeatJobService {
+
+  private static final String ACTIVE = "ACTIVE";
+  private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+
+  private final Logger logger;
+  private final BeatJobRepository beatJobRepository;
+  private final ProductDefinitionRepository productDefinitionRepository;
+  private final ProductInstanceRepository productInstanceRepository;
+  private final InterestBearingBalanceRepository interestBearingBalanceRepository;
+  private final AccrualCheckpointRepository accrualCheckpointRepository;
+  private final CommandGateway commandGateway;
+  private final ExecutorService executorService;
+  private final ScheduledExecutorService leaseRenewer;
+
+  @Value("${config.beatJobLeaseInSeconds}")
+  private Integer beatJobLeaseInSeconds;
+
+  @Autowired
+  public BeatJobService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                        final BeatJobRepository beatJobRepository,
+                        final ProductDefinitionRepository productDefinitionRepository,
+                        final ProductInstanceRepository productInstanceRepository,
+                        final InterestBearingBalanceRepository interestBearingBalanceRepository,
+                        final AccrualCheckpointRepository accrualCheckpointRepository,
+                        final CommandGateway commandGateway,
+                        @Value("${config.beatJobThreads}") final Integer beatJobThreads) {
+    super();
+    this.logger = logger;
+    this.beatJobRepository = beatJobRepository;
+    this.productDefinitionRepository = productDefinitionRepository;
+    this.productInstanceRepository = productInstanceRepository;
+    this.interestBearingBalanceRepository = interestBearingBalanceRepository;
+    this.accrualCheckpointRepository = accrualCheckpointRepository;
+    this.commandGateway = commandGateway;
+    this.executorService = Executors.newFixedThreadPool(Math.max(1, beatJobThreads));
+    this.leaseRenewer = Executors.newSingleThreadScheduledExecutor();
+  }
+
+  public void submit(final BeatPublish beatPublish) {
+    final Optional<BeatJobEntity> optionalBeatJob = this.beatJobRepository.findByIdentifier(beatPublish.getIdentifier());
+    final Long beatJobId;
+    if (optionalBeatJob.isPresent()) {
+      final BeatJobEntity beatJobEntity = optionalBeatJob.get();
+      final LocalDateTime now = this.now();
+      if (BeatJob.State.COMPLETED.name().equals(beatJobEntity.getState())
+          || this.beatJobRepository.claim(
+              beatJobEntity.getId(), beatJobEntity.getState(), now, this.leaseUntil(now)) == 0) {
+        this.logger.info("Beat {} already {}, skipping.", beatJobEntity.getIdentifier(), beatJobEntity.getState());
+        return;
+      }
+      beatJobId = beatJobEntity.getId();
+    } else {
+      final BeatJobEntity beatJobEntity = new BeatJobEntity();
+      beatJobEntity.setIdentifier(beatPublish.getIdentifier());
+      beatJobEntity.setDueDate(DateConverter.fromIsoString(beatPublish.getForTime()).toLocalDate());
+      beatJobEntity.setState(BeatJob.State.PENDING.name());
+      beatJobEntity.setTotalItems(0L);
+      beatJobEntity.setCreatedOn(this.now());
+      beatJobEntity.setLeaseUntil(this.leaseUntil(beatJobEntity.getCreatedOn()));
+      try {
+        beatJobId = this.beatJobRepository.save(beatJobEntity).getId();
+      } catch (final DataIntegrityViolationException ex) {
+        this.logger.info("Beat {} already submitted, skipping.", beatPublish.getIdentifier());
+        return;
+      }
+    }
+
+    this.executorService.submit(ContextAwareExecutor.withContext(() -> {
+      this.run(beatJobId);
+      return null;
+    }));
+  }
+
+  public Optional<BeatJob> findBeatJob(final String identifier) {
+    return this.beatJobRepository.findByIdentifier(identifier)
+        .map(beatJobEntity -> BeatJobMapper.map(beatJobEntity, this.processedItems(beatJobEntity)));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executorService.shutdownNow();
+    this.leaseRenewer.shutdownNow();
+  }
+
+  private void run(final Long beatJobId) {
+    final ScheduledFuture<?> leaseRenewal = this.renewLease(beatJobId);
+    try {
+      this.runStages(beatJobId);
+    } finally {
+      leaseRenewal.cancel(false);
+    }
+  }
+
+  private void runStages(final Long beatJobId) {
+    final BeatJobEntity beatJobEntity = this.beatJobRepository.findOne(beatJobId);
+    final LocalDate dueDate = beatJobEntity.getDueDate();
+    try {
+      beatJobEntity.setState(BeatJob.State.RUNNING.name());
+      beatJobEntity.setTotalItems(this.countAccruableInstances());
+
+      this.enterStage(beatJobEntity, BeatJob.Stage.INTEREST_BEARING_BALANCE);
+      this.commandGateway.process(new CalculateIBBCommand(dueDate), String.class).get();
+
+      this.enterStage(beatJobEntity, BeatJob.Stage.ACCRUAL);
+      final String date = this.commandGateway.process(new AccrualCommand(dueDate), String.class).get();
+
+      this.enterStage(beatJobEntity, BeatJob.Stage.PAYOUT);
+      this.commandGateway.process(new PayInterestCommand(DateConverter.dateFromIsoString(date)), String.class).get();
+
+      beatJobEntity.setState(BeatJob.State.COMPLETED.name());
+      beatJobEntity.setCompletedOn(this.now());
+      beatJobEntity.setLeaseUntil(null);
+      this.beatJobRepository.save(beatJobEntity);
+    } catch (final Exception ex) {
+      this.logger.warn("Could not handle beat {} in stage {}.", beatJobEntity.getIdentifier(),
+          beatJobEntity.getStage(), ex);
+      final String errorMessage = String.valueOf(ex.getMessage());
+      beatJobEntity.setState(BeatJob.State.FAILED.name());
+      beatJobEntity.setErrorMessage(errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH
+          ? errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH) : errorMessage);
+      beatJobEntity.setCompletedOn(this.now());
+      beatJobEntity.setLeaseUntil(null);
+      this.beatJobRepository.save(beatJobEntity);
+    }
+  }
+
+  private void enterStage(final BeatJobEntity beatJobEntity, final BeatJob.Stage stage) {
+    beatJobEntity.setStage(stage.name());
+    beatJobEntity.setStageStartedOn(this.now());
+    beatJobEntity.setLeaseUntil(this.leaseUntil(beatJobEntity.getStageStartedOn()));
+    this.beatJobRepository.save(beatJobEntity);
+  }
+
+  /**
+   * Renews the lease of the job three times per lease period while it runs, so that a job is only taken over once
+   * its node stopped working on it.
+   */
+  private ScheduledFuture<?> renewLease(final Long beatJobId) {
+    final Callable<Integer> renewal = ContextAwareExecutor.withContext(() ->
+        this.beatJobRepository.renewLease(beatJobId, this.leaseUntil(this.now())));
+    final long period = Math.max(1L, this.beatJobLeaseInSeconds / 3L);
+    return this.leaseRenewer.scheduleAtFixedRate(() -> {
+      try {
+        if (renewal.call() == 0) {
+          this.logger.warn("Lease of beat job {} is no longer held.", beatJobId);
+        }
+      } catch (final Exception ex) {
+        this.logger.warn("Could not renew lease of beat job {}.", beatJobId, ex);
+      }
+    }, period, period, TimeUnit.SECONDS);
+  }
+
+  private LocalDateTime leaseUntil(final LocalDateTime from) {
+    return from.plusSeconds(this.beatJobLeaseInSeconds);
+  }
+
+  private LocalDateTime now() {
+    return LocalDateTime.now(Clock.systemUTC());
+  }
+
+  private Long countAccruableInstances() {
+    final List<ProductDefinitionEntity> accruableProducts = this.productDefinitionRepository.findAll()
+        .stream()
+        .filter(InterestAccrualService::accruableProduct)
+        .collect(Collectors.toList());
+    if (accruableProducts.isEmpty()) {
+      return 0L;
+    }
+    return this.productInstanceRepository.countByProductDefinitionInAndState(accruableProducts, ACTIVE);
+  }
+
+  /**
+   * Progress is read from what the stages persist anyway, interest bearing balances and accrual checkpoints, so
+   * the stages do not need to report back. Pay-out does not keep a per instance trail and reports no progress.
+   */
+  private Long processedItems(final BeatJobEntity beatJobEntity) {
+    if (BeatJob.State.COMPLETED.name().equals(beatJobEntity.getState())) {
+      return beatJobEntity.getTotalItems();
+    }
+    if (beatJobEntity.getStage() == null) {
+      return 0L;
+    }
+    final Long processedItems;
+    switch (BeatJob.Stage.valueOf(beatJobEntity.getStage())) {
+      case INTEREST_BEARING_BALANCE:
+        processedItems = this.interestBearingBalanceRepository.countByBalanceDate(
+            beatJobEntity.getDueDate().minusDays(1L));
+        break;
+      case ACCRUAL:
+        processedItems = this.accrualCheckpointRepository.sumProcessedInstances(beatJobEntity.getDueDate());
+        break;
+      default:
+        return null;
+    }
+    return Math.min(processedItems, beatJobEntity.getTotalItems());
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.repository.DailyBalanceRepository;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Maintains the daily net movements of customer accounts, so that past end-of-day balances can be derived locally
+ * instead of asking the ledger for the entries of every single day.
+ */
+@Service
+public class DailyBalanceService {
+
+  private final Logger logger;
+  private final DailyBalanceRepository dailyBalanceRepository;
+
+  @Value("${config.accrualBatchSize}")
+  private Integer batchSize;
+
+  @Autowired
+  public DailyBalanceService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                             final DailyBalanceRepository dailyBalanceRepository) {
+    super();
+    this.logger = logger;
+    this.dailyBalanceRepository = dailyBalanceRepository;
+  }
+
+  public void refresh(final LocalDate from, final LocalDate to) {
+    this.dailyBalanceRepository.refresh(from, to);
+    this.logger.debug("Refreshed daily balances from {} to {}.", from, to);
+  }
+
+  public void recordLedgerMovements(final Map<String, BigDecimal> amounts) {
+    this.dailyBalanceRepository.addLedgerMovements(amounts, LocalDate.now(Clock.systemUTC()), this.batchSize);
+  }
+
+  public void recordLedgerMovement(final String accountIdentifier, final BigDecimal amount) {
+    final HashMap<String, BigDecimal> amounts = new HashMap<>(1);
+    amounts.put(accountIdentifier, amount);
+    this.recordLedgerMovements(amounts);
+  }
+
+  /**
+   * @return the amounts posted directly in the ledger to the given accounts between both days inclusive, by account
+   * and day. Accounts and days without such a movement are left out.
+   */
+  public Map<String, TreeMap<LocalDate, BigDecimal>> ledgerMovements(final Collection<String> accountIdentifiers,
+                                                                     final LocalDate from,
+                                                                     final LocalDate to) {
+    final HashMap<String, TreeMap<LocalDate, BigDecimal>> ledgerMovements = new HashMap<>();
+    if (accountIdentifiers.isEmpty()) {
+      return ledgerMovements;
+    }
+    this.dailyBalanceRepository.findByAccountIdentifierInAndBalanceDateBetween(accountIdentifiers, from, to)
+        .stream()
+        .filter(dailyBalanceEntity -> dailyBalanceEntity.getLedgerMovement().signum() != 0)
+        .forEach(dailyBalanceEntity -> ledgerMovements
+            .computeIfAbsent(dailyBalanceEntity.getAccountIdentifier(), key -> new TreeMap<>())
+            .put(dailyBalanceEntity.getBalanceDate(), dailyBalanceEntity.getLedgerMovement()));
+    return ledgerMovements;
+  }
+
+  /**
+   * Walks back from the current balance of the account, using the recorded daily movements. Days with only a ledger
+   * movement count as well.
+   * @return the end-of-day balances from {@code to} back to {@code from}, latest first.
+   */
+  public List<BigDecimal> endOfDayBalances(final String accountIdentifier,
+                                           final BigDecimal currentBalance,
+                                           final LocalDate from,
+                                           final LocalDate to) {
+    final TreeMap<LocalDate, BigDecimal> movements = new TreeMap<>();
+    this.dailyBalanceRepository
+        .findByAccountIdentifierAndBalanceDateGreaterThanEqualOrderByBalanceDateDesc(accountIdentifier, from.plusDays(1L))
+        .forEach(dailyBalanceEntity ->
+            movements.put(dailyBalanceEntity.getBalanceDate(), dailyBalanceEntity.getNetMovement()));
+
+    BigDecimal balance = currentBalance;
+    for (final BigDecimal movement : movements.tailMap(to, false).values()) {
+      balance = balance.subtract(movement);
+    }
+
+    final ArrayList<BigDecimal> balances = new ArrayList<>();
+    for (LocalDate day = to; !day.isBefore(from); day = day.minusDays(1L)) {
+      balances.add(balance);
+      balance = balance.subtract(movements.getOrDefault(day, BigDecimal.ZERO));
+    }
+    return balances;
+  }
+}
@@ -0,0 +1,332 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import com.google.common.collect.Sets;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.apache.fineract.cn.accounting.api.v1.domain.Creditor;
+import org.apache.fineract.cn.accounting.api.v1.domain.Debtor;
+import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
+import org.apache.fineract.cn.api.util.UserContextHolder;
+import org.apache.fineract.cn.deposit.api.v1.domain.InterestPayable;
+import org.apache.fineract.cn.deposit.api.v1.domain.Type;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccrualCheckpointEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccrualCheckpointRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccruedInterestEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccruedInterestRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestBearingBalanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.TermEntity;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class InterestAccrualService {
+
+  public static final int INTEREST_PRECISION = 7;
+  private static final String ACTIVE = "ACTIVE";
+
+  private final Logger logger;
+  private final ProductInstanceRepository productInstanceRepository;
+  private final AccruedInterestRepository accruedInterestRepository;
+  private final AccrualCheckpointRepository accrualCheckpointRepository;
+  private final InterestBearingBalanceRepository interestBearingBalanceRepository;
+  private final InterestRunService interestRunService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${config.accrualBatchSize}")
+  private Integer accrualBatchSize;
+
+  @Value("${config.accrualChunkSize}")
+  private Integer accrualChunkSize;
+
+  @Autowired
+  public InterestAccrualService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                                final ProductInstanceRepository productInstanceRepository,
+                                final AccruedInterestRepository accruedInterestRepository,
+                                final AccrualCheckpointRepository accrualCheckpointRepository,
+                                final InterestBearingBalanceRepository interestBearingBalanceRepository,
+                                final InterestRunService interestRunService,
+                                final PlatformTransactionManager transactionManager) {
+    super();
+    this.logger = logger;
+    this.productInstanceRepository = productInstanceRepository;
+    this.accruedInterestRepository = accruedInterestRepository;
+    this.accrualCheckpointRepository = accrualCheckpointRepository;
+    this.interestBearingBalanceRepository = interestBearingBalanceRepository;
+    this.interestRunService = interestRunService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Prepares the accrual of one day of interest for all active instances of the given product.
+   *
+   * Instances are split into shards by id, one task per shard. Each task processes its shard in chunks ordered by
+   * id, each chunk committing its accrued amounts and a checkpoint in its own transaction. The journal entry of a
+   * chunk is identified by the run and the chunk, so a chunk retried after a failed commit does not post again.
+   * Preparing the same product and date again resumes every shard after its last committed chunk; shards that
+   * already completed yield no task.
+   * @return the tasks still to be run, which are independent of each other.
+   */
+  public List<Callable<Void>> accrualTasks(final ProductDefinitionEntity productDefinitionEntity,
+                                           final TermEntity term,
+                                           final LocalDate accrualDate,
+                                           final int shardCount,
+                                           final Long interestRunId) {
+    final List<AccrualCheckpointEntity> checkpoints = this.transactionTemplate.execute(status ->
+        this.findOrCreateCheckpoints(productDefinitionEntity, accrualDate, shardCount));
+
+    final List<AccrualCheckpointEntity> pendingCheckpoints = checkpoints.stream()
+        .filter(checkpoint -> !checkpoint.getCompleted())
+        .collect(Collectors.toList());
+    if (pendingCheckpoints.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    return pendingCheckpoints.stream()
+        .map(checkpoint -> (Callable<Void>) () -> {
+          boolean completed = false;
+          while (!completed) {
+            completed = this.transactionTemplate.execute(status ->
+                this.accrueChunk(checkpoint.getId(), productDefinitionEntity, term, accrualDate, interestRunId));
+          }
+          return null;
+        })
+        .collect(Collectors.toList());
+  }
+
+  private List<AccrualCheckpointEntity> findOrCreateCheckpoints(final ProductDefinitionEntity productDefinitionEntity,
+                                                                final LocalDate accrualDate,
+                                                                final int shardCount) {
+    final List<AccrualCheckpointEntity> checkpoints =
+        this.accrualCheckpointRepository.findByProductDefinitionAndDueDateOrderByShardAsc(productDefinitionEntity, accrualDate);
+    // a resumed run keeps the shards it started with, they partition the instances differently otherwise
+    if (!checkpoints.isEmpty()) {
+      return checkpoints;
+    }
+
+    return IntStream.range(0, shardCount)
+        .mapToObj(shard -> {
+          final AccrualCheckpointEntity accrualCheckpointEntity = new AccrualCheckpointEntity();
+          accrualCheckpointEntity.setProductDefinition(productDefinitionEntity);
+          accrualCheckpointEntity.setDueDate(accrualDate);
+          accrualCheckpointEntity.setShard(shard);
+          accrualCheckpointEntity.setShardCount(shardCount);
+          accrualCheckpointEntity.setLastInstanceId(0L);
+          accrualCheckpointEntity.setProcessedInstances(0L);
+          accrualCheckpointEntity.setAccruedAmount(0.00D);
+          accrualCheckpointEntity.setCompleted(Boolean.FALSE);
+          accrualCheckpointEntity.setCreatedOn(LocalDateTime.now(Clock.systemUTC()));
+          return this.accrualCheckpointRepository.save(accrualCheckpointEntity);
+        })
+        .collect(Collectors.toList());
+  }
+
+  private boolean accrueChunk(final Long checkpointId,
+                              final ProductDefinitionEntity productDefinitionEntity,
+                              final TermEntity term,
+                              final LocalDate accrualDate,
+                              final Long interestRunId) {
+    // a concurrent worker of the same run waits here and then sees the chunk it was after as done
+    final AccrualCheckpointEntity checkpoint = this.accrualCheckpointRepository.findForUpdate(checkpointId);
+    if (checkpoint.getCompleted()) {
+      return true;
+    }
+
+    final List<ProductInstanceEntity> productInstances =
+        this.productInstanceRepository.findShardAfter(productDefinitionEntity, ACTIVE,
+            checkpoint.getShard(), checkpoint.getShardCount(), checkpoint.getLastInstanceId(),
+            new PageRequest(0, this.accrualChunkSize));
+
+    if (productInstances.isEmpty()) {
+      checkpoint.setCompleted(Boolean.TRUE);
+      checkpoint.setLastModifiedOn(LocalDateTime.now(Clock.systemUTC()));
+      this.accrualCheckpointRepository.save(checkpoint);
+      this.logger.info("Accrual of product {} for {} completed shard {}, {} instances processed.",
+          productDefinitionEntity.getIdentifier(), accrualDate, checkpoint.getShard(), checkpoint.getProcessedInstances());
+      return true;
+    }
+
+    final BigDecimal rate = BigDecimal.valueOf(productDefinitionEntity.getInterest())
+        .divide(BigDecimal.valueOf(100), INTEREST_PRECISION, BigDecimal.ROUND_HALF_EVEN);
+    final int periods = periodOfInterestPayable(term.getInterestPayable());
+    final int lengthOfYear = accrualDate.lengthOfYear();
+
+    final Map<String, BigDecimal> balances = this.interestBearingBalances(productInstances, accrualDate);
+    // every active instance gets a balance when they are calculated, a gap means they were not for this day
+    final List<String> missingBalances = productInstances.stream()
+        .map(ProductInstanceEntity::getAccountIdentifier)
+        .filter(accountIdentifier -> !balances.containsKey(accountIdentifier))
+        .collect(Collectors.toList());
+    if (!missingBalances.isEmpty()) {
+      this.logger.warn("No interest-bearing balance of accounts {} for {}, accrual of product {} stopped.",
+          missingBalances, accrualDate.minusDays(1L), productDefinitionEntity.getIdentifier());
+      throw ServiceException.internalError("Interest-bearing balances of {0} accounts of product {1} for {2} missing.",
+          String.valueOf(missingBalances.size()), productDefinitionEntity.getIdentifier(),
+          accrualDate.minusDays(1L).toString());
+    }
+
+    final List<AccruedInterestEntity> accruedInterests = new ArrayList<>(productInstances.size());
+    BigDecimal accruedTotal = BigDecimal.ZERO;
+    for (final ProductInstanceEntity productInstanceEntity : productInstances) {
+      final BigDecimal balance = balances.get(productInstanceEntity.getAccountIdentifier());
+      if (balance.signum() <= 0) {
+        continue;
+      }
+
+      final BigDecimal accruedInterest =
+          accruedInterest(balance, rate, periods, lengthOfYear)
+              .setScale(5, BigDecimal.ROUND_HALF_EVEN);
+
+      if (accruedInterest.compareTo(BigDecimal.ZERO) > 0) {
+        final AccruedInterestEntity accruedInterestEntity = new AccruedInterestEntity();
+        accruedInterestEntity.setAccrueAccountIdentifier(productDefinitionEntity.getAccrueAccountIdentifier());
+        accruedInterestEntity.setCustomerAccountIdentifier(productInstanceEntity.getAccountIdentifier());
+        accruedInterestEntity.setAmount(accruedInterest.doubleValue());
+        accruedInterests.add(accruedInterestEntity);
+
+        accruedTotal = accruedTotal.add(accruedInterest);
+      }
+    }
+
+    this.accruedInterestRepository.accrue(accruedInterests, this.accrualBatchSize);
+
+    final BigDecimal roundedAmount = accruedTotal.setScale(2, BigDecimal.ROUND_HALF_EVEN);
+    if (roundedAmount.compareTo(BigDecimal.ZERO) > 0) {
+      // the chunk is known by where it starts, which a retry after a failed commit starts from again
+      this.postAccrual(productDefinitionEntity, roundedAmount.toString(), interestRunId,
+          InterestRunService.journalEntryIdentifier(interestRunId,
+              "accrual/" + checkpoint.getShard() + "/" + checkpoint.getLastInstanceId()));
+    }
+
+    checkpoint.setLastInstanceId(productInstances.get(productInstances.size() - 1).getId());
+    checkpoint.setProcessedInstances(checkpoint.getProcessedInstances() + productInstances.size());
+    checkpoint.setAccruedAmount(BigDecimal.valueOf(checkpoint.getAccruedAmount()).add(accruedTotal).doubleValue());
+    checkpoint.setLastModifiedOn(LocalDateTime.now(Clock.systemUTC()));
+    this.accrualCheckpointRepository.save(checkpoint);
+
+    this.logger.debug("Accrued interest for {} of {} instances of product {} up to instance {}.",
+        accruedInterests.size(), productInstances.size(), productDefinitionEntity.getIdentifier(),
+        checkpoint.getLastInstanceId());
+
+    return false;
+  }
+
+  private void postAccrual(final ProductDefinitionEntity productDefinitionEntity, final String roundedAmount,
+                           final Long interestRunId, final String transactionIdentifier) {
+    final JournalEntry cashToAccrueJournalEntry = new JournalEntry();
+    cashToAccrueJournalEntry.setTransactionIdentifier(transactionIdentifier);
+    cashToAccrueJournalEntry.setTransactionDate(DateConverter.toIsoString(LocalDateTime.now(Clock.systemUTC())));
+    cashToAccrueJournalEntry.setTransactionType("INTR");
+    cashToAccrueJournalEntry.setClerk(UserContextHolder.checkedGetUser());
+    cashToAccrueJournalEntry.setNote("Daily accrual for product " + productDefinitionEntity.getIdentifier() + ".");
+
+    final Debtor cashDebtor = new Debtor();
+    cashDebtor.setAccountNumber(productDefinitionEntity.getCashAccountIdentifier());
+    cashDebtor.setAmount(roundedAmount);
+    cashToAccrueJournalEntry.setDebtors(Sets.newHashSet(cashDebtor));
+
+    final Creditor accrueCreditor = new Creditor();
+    accrueCreditor.setAccountNumber(productDefinitionEntity.getAccrueAccountIdentifier());
+    accrueCreditor.setAmount(roundedAmount);
+    cashToAccrueJournalEntry.setCreditors(Sets.newHashSet(accrueCreditor));
+
+    this.interestRunService.post(interestRunId, cashToAccrueJournalEntry);
+  }
+
+  /**
+   * Interest accrues on the balance of the last closed day, as calculated by the
+   * {@link InterestBearingBalanceService} before accrual runs.
+   */
+  private Map<String, BigDecimal> interestBearingBalances(final List<ProductInstanceEntity> productInstances,
+                                                          final LocalDate accrualDate) {
+    final List<String> accountIdentifiers = productInstances.stream()
+        .map(ProductInstanceEntity::getAccountIdentifier)
+        .collect(Collectors.toList());
+
+    final HashMap<String, BigDecimal> balances = new HashMap<>(accountIdentifiers.size());
+    this.interestBearingBalanceRepository
+        .findByAccountIdentifierInAndBalanceDate(accountIdentifiers, accrualDate.minusDays(1L))
+        .forEach(interestBearingBalanceEntity -> balances.put(
+            interestBearingBalanceEntity.getAccountIdentifier(), interestBearingBalanceEntity.getBalance()));
+    return balances;
+  }
+
+  /**
+   * @return true if instances of the given product bear interest.
+   */
+  public static boolean accruableProduct(final ProductDefinitionEntity productDefinitionEntity) {
+    return productDefinitionEntity.getActive()
+        && !productDefinitionEntity.getType().equals(Type.SHARE.name())
+        && productDefinitionEntity.getInterest() != null
+        && productDefinitionEntity.getInterest() > 0.00D;
+  }
+
+  public static int periodOfInterestPayable(final String interestPayable) {
+    switch (InterestPayable.valueOf(interestPayable)) {
+      case MONTHLY:
+        return 12;
+      case QUARTERLY:
+        return 4;
+      default:
+        return 1;
+    }
+  }
+
+  /**
+   * Copied from JavaMoney AnnualPercentageYield.calculate, and adjusted.
+   * @return the resulting amount, never null.
+   */
+  public static BigDecimal accruedInterest(
+      final BigDecimal amount,
+      final BigDecimal rate,
+      final int periods,
+      final int lengthOfYear) {
+    final BigDecimal baseFactor = rate.divide(BigDecimal.valueOf(periods),MathContext.DECIMAL64)
+        .add(BigDecimal.ONE);
+    final BigDecimal annualInterest = amount.multiply(baseFactor.pow(periods).subtract(BigDecimal.ONE));
+
+    return annualInterest
+            .divide(  BigDecimal.valueOf(lengthOfYear),
+                amount.scale() + INTEREST_PRECISION, BigDecimal.ROUND_HALF_EVEN);
+  }
+}
@@ -0,0 +1,338 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.apache.fineract.cn.accounting.api.v1.domain.Account;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestBearingBalanceEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestBearingBalanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.AccountingService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Computes daily interest-bearing balances. Credits bear interest from their transaction date plus the configured
+ * days of their sub transaction type, debits stop bearing interest from their transaction date minus the configured
+ * days. Fees are debited on their transaction date. Amounts posted directly in the ledger, e.g. interest pay-outs,
+ * count on the day they were recorded in the daily balances.
+ *
+ * Every account continues from its most recent stored balance, so a run only reads the transactions that can
+ * still affect the days not yet stored. Accounts without a stored balance, e.g. all accounts right after an upgrade,
+ * start with a single balance for the requested day taken from the ledger, so that opening balances and anything
+ * else booked outside of shed_transactions is part of it.
+ */
+@Service
+public class InterestBearingBalanceService {
+
+  private static final String ACTIVE = "ACTIVE";
+
+  private final Logger logger;
+  private final ProductInstanceRepository productInstanceRepository;
+  private final TransactionRepository transactionRepository;
+  private final SubTxnTypeRegistry subTxnTypeRegistry;
+  private final InterestBearingBalanceRepository interestBearingBalanceRepository;
+  private final DailyBalanceService dailyBalanceService;
+  private final AccountingService accountingService;
+  private final TransactionTemplate transactionTemplate;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Value("${config.accrualBatchSize}")
+  private Integer batchSize;
+
+  @Value("${config.accrualChunkSize}")
+  private Integer chunkSize;
+
+  @Autowired
+  public InterestBearingBalanceService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                                       final ProductInstanceRepository productInstanceRepository,
+                                       final TransactionRepository transactionRepository,
+                                       final SubTxnTypeRegistry subTxnTypeRegistry,
+                                       final InterestBearingBalanceRepository interestBearingBalanceRepository,
+                                       final DailyBalanceService dailyBalanceService,
+                                       final AccountingService accountingService,
+                                       final PlatformTransactionManager transactionManager) {
+    super();
+    this.logger = logger;
+    this.productInstanceRepository = productInstanceRepository;
+    this.transactionRepository = transactionRepository;
+    this.subTxnTypeRegistry = subTxnTypeRegistry;
+    this.interestBearingBalanceRepository = interestBearingBalanceRepository;
+    this.dailyBalanceService = dailyBalanceService;
+    this.accountingService = accountingService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Prepares the calculation of interest-bearing balances up to the given day for all active instances of the
+   * given product, split into independent tasks by instance id. Accounts already calculated up to that day are
+   * skipped, so the tasks can safely be run again.
+   */
+  public List<Callable<Void>> calculationTasks(final ProductDefinitionEntity productDefinitionEntity,
+                                               final LocalDate balanceDate,
+                                               final int shardCount) {
+    final Map<String, ValueDating> valueDatings = new HashMap<>();
+    this.subTxnTypeRegistry.entries().forEach((identifier, entry) ->
+        valueDatings.put(identifier, new ValueDating(entry.ibbPlusDays(), entry.ibbMinusDays())));
+
+    return IntStream.range(0, shardCount)
+        .mapToObj(shard -> (Callable<Void>) () -> {
+          Long lastInstanceId = 0L;
+          while (lastInstanceId != null) {
+            final Long fromInstanceId = lastInstanceId;
+            lastInstanceId = this.transactionTemplate.execute(status ->
+                this.calculateChunk(productDefinitionEntity, shard, shardCount, fromInstanceId, balanceDate, valueDatings));
+          }
+          return null;
+        })
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * @return the id of the last instance of the chunk, or null if there are no more instances.
+   */
+  private Long calculateChunk(final ProductDefinitionEntity productDefinitionEntity,
+                              final int shard,
+                              final int shardCount,
+                              final Long fromInstanceId,
+                              final LocalDate balanceDate,
+                              final Map<String, ValueDating> valueDatings) {
+    final List<ProductInstanceEntity> productInstances =
+        this.productInstanceRepository.findShardAfter(productDefinitionEntity, ACTIVE, shard, shardCount,
+            fromInstanceId, new PageRequest(0, this.chunkSize));
+    if (productInstances.isEmpty()) {
+      return null;
+    }
+    final Long lastInstanceId = productInstances.get(productInstances.size() - 1).getId();
+
+    final List<String> accountIdentifiers = productInstances.stream()
+        .map(ProductInstanceEntity::getAccountIdentifier)
+        .collect(Collectors.toList());
+    final Map<String, InterestBearingBalanceEntity> latestBalances =
+        this.interestBearingBalanceRepository.findLatest(accountIdentifiers);
+
+    final HashMap<String, BalanceBuilder> balanceBuilders = new HashMap<>();
+    final ArrayList<String> unseededAccountIdentifiers = new ArrayList<>();
+    accountIdentifiers.forEach(accountIdentifier -> {
+      final InterestBearingBalanceEntity latestBalance = latestBalances.get(accountIdentifier);
+      if (latestBalance == null) {
+        unseededAccountIdentifiers.add(accountIdentifier);
+      } else if (latestBalance.getBalanceDate().isBefore(balanceDate)) {
+        balanceBuilders.put(accountIdentifier, new BalanceBuilder(latestBalance, balanceDate));
+      }
+    });
+
+    final ArrayList<InterestBearingBalanceEntity> balances =
+        new ArrayList<>(this.seed(unseededAccountIdentifiers, balanceDate));
+    if (balanceBuilders.isEmpty()) {
+      this.interestBearingBalanceRepository.upsert(balances, this.batchSize);
+      return lastInstanceId;
+    }
+
+    // accounts are read per first open day, so one account far behind does not make the others read its range too
+    final int maxPlusDays = valueDatings.values().stream().mapToInt(ValueDating::getPlusDays).max().orElse(0);
+    final TreeMap<LocalDate, List<String>> accountIdentifiersByFirstDate = balanceBuilders.entrySet().stream()
+        .collect(Collectors.groupingBy(entry -> entry.getValue().getFirstDate(), TreeMap::new,
+            Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+    accountIdentifiersByFirstDate.forEach((firstDate, groupAccountIdentifiers) -> {
+      this.applyTransactions(balanceBuilders, groupAccountIdentifiers, firstDate.minusDays(maxPlusDays), balanceDate,
+          valueDatings);
+      this.dailyBalanceService.ledgerMovements(groupAccountIdentifiers, firstDate, balanceDate)
+          .forEach((accountIdentifier, ledgerMovements) ->
+              ledgerMovements.forEach(balanceBuilders.get(accountIdentifier)::ledgerMovement));
+    });
+
+    balanceBuilders.forEach((accountIdentifier, balanceBuilder) -> {
+      balanceBuilder.corrections.forEach((valueDate, amount) ->
+          this.interestBearingBalanceRepository.subtract(accountIdentifier, valueDate, amount));
+      balances.addAll(balanceBuilder.build(accountIdentifier));
+    });
+    this.interestBearingBalanceRepository.upsert(balances, this.batchSize);
+
+    this.logger.debug("Calculated {} interest-bearing balances for {} accounts of product {} up to instance {}.",
+        balances.size(), balanceBuilders.size() + unseededAccountIdentifiers.size(),
+        productDefinitionEntity.getIdentifier(), lastInstanceId);
+
+    return lastInstanceId;
+  }
+
+  /**
+   * Applies the transactions of the given accounts from the given day on. Streamed transactions are detached once
+   * applied, so the persistence context does not grow with the number of transactions read.
+   */
+  private void applyTransactions(final Map<String, BalanceBuilder> balanceBuilders,
+                                 final List<String> accountIdentifiers,
+                                 final LocalDate readFrom,
+                                 final LocalDate balanceDate,
+                                 final Map<String, ValueDating> valueDatings) {
+    try (final Stream<TransactionEntity> transactions = this.transactionRepository.streamParentTransactions(
+        accountIdentifiers, readFrom.atStartOfDay(), balanceDate.plusDays(1L).atStartOfDay())) {
+      transactions.forEach(transactionEntity -> {
+        final BalanceBuilder balanceBuilder = balanceBuilders.get(transactionEntity.getAccountId());
+        final ValueDating valueDating = transactionEntity.getSubTxnType() != null
+            ? valueDatings.getOrDefault(transactionEntity.getSubTxnType(), ValueDating.NONE)
+            : ValueDating.NONE;
+        final LocalDate transactionDate = transactionEntity.getTransactionDate().toLocalDate();
+
+        if (TransactionService.CREDIT.equals(transactionEntity.getType())) {
+          balanceBuilder.credit(transactionDate.plusDays(valueDating.getPlusDays()), transactionEntity.getAmount());
+        } else if (TransactionService.DEBIT.equals(transactionEntity.getType())) {
+          balanceBuilder.debit(transactionDate, transactionDate.minusDays(valueDating.getMinusDays()),
+              transactionEntity.getAmount());
+        }
+        if (transactionEntity.getFeeAmount() != null && transactionEntity.getFeeAmount().signum() > 0) {
+          balanceBuilder.debit(transactionDate, transactionDate, transactionEntity.getFeeAmount());
+        }
+        this.entityManager.detach(transactionEntity);
+      });
+    }
+  }
+
+  /**
+   * Takes the ledger balance of each account back to the end of the given day with the recorded daily movements.
+   * Value dating of transactions before that day is not applied to this first balance.
+   */
+  private List<InterestBearingBalanceEntity> seed(final List<String> accountIdentifiers, final LocalDate balanceDate) {
+    return accountIdentifiers.stream()
+        .map(accountIdentifier -> {
+          final Account account = this.accountingService.findAccount(accountIdentifier);
+          final BigDecimal balance = this.dailyBalanceService.endOfDayBalances(accountIdentifier,
+              BigDecimal.valueOf(account.getBalance()), balanceDate, balanceDate).get(0);
+
+          final InterestBearingBalanceEntity interestBearingBalanceEntity = new InterestBearingBalanceEntity();
+          interestBearingBalanceEntity.setAccountIdentifier(accountIdentifier);
+          interestBearingBalanceEntity.setBalanceDate(balanceDate);
+          interestBearingBalanceEntity.setBalance(balance);
+          return interestBearingBalanceEntity;
+        })
+        .collect(Collectors.toList());
+  }
+
+  private static class ValueDating {
+    private static final ValueDating NONE = new ValueDating(0, 0);
+
+    private final int plusDays;
+    private final int minusDays;
+
+    private ValueDating(final Integer plusDays, final Integer minusDays) {
+      super();
+      this.plusDays = plusDays != null ? plusDays : 0;
+      this.minusDays = minusDays != null ? minusDays : 0;
+    }
+
+    private int getPlusDays() {
+      return this.plusDays;
+    }
+
+    private int getMinusDays() {
+      return this.minusDays;
+    }
+  }
+
+  private static class BalanceBuilder {
+    private final LocalDate lastDate;
+    private final LocalDate firstDate;
+    private final LocalDate balanceDate;
+    private BigDecimal openingBalance;
+    private final TreeMap<LocalDate, BigDecimal> movements = new TreeMap<>();
+    private final TreeMap<LocalDate, BigDecimal> corrections = new TreeMap<>();
+
+    private BalanceBuilder(final InterestBearingBalanceEntity latestBalance, final LocalDate balanceDate) {
+      super();
+      this.lastDate = latestBalance.getBalanceDate();
+      this.firstDate = this.lastDate.plusDays(1L);
+      this.balanceDate = balanceDate;
+      this.openingBalance = latestBalance.getBalance();
+    }
+
+    private LocalDate getFirstDate() {
+      return this.firstDate;
+    }
+
+    private void credit(final LocalDate valueDate, final BigDecimal amount) {
+      if (valueDate.isAfter(this.balanceDate)) {
+        return;
+      }
+      if (!valueDate.isBefore(this.firstDate)) {
+        this.movements.merge(valueDate, amount, BigDecimal::add);
+      }
+      // otherwise already part of the stored balances
+    }
+
+    private void debit(final LocalDate transactionDate, final LocalDate valueDate, final BigDecimal amount) {
+      if (!transactionDate.isAfter(this.lastDate)) {
+        // already part of the stored balances
+        return;
+      }
+      if (!valueDate.isBefore(this.firstDate)) {
+        this.movements.merge(valueDate, amount.negate(), BigDecimal::add);
+      } else {
+        // back-valued into days already stored
+        this.openingBalance = this.openingBalance.subtract(amount);
+        this.corrections.merge(valueDate, amount, BigDecimal::add);
+      }
+    }
+
+    private void ledgerMovement(final LocalDate day, final BigDecimal amount) {
+      if (!day.isBefore(this.firstDate) && !day.isAfter(this.balanceDate)) {
+        this.movements.merge(day, amount, BigDecimal::add);
+      }
+    }
+
+    private List<InterestBearingBalanceEntity> build(final String accountIdentifier) {
+      final ArrayList<InterestBearingBalanceEntity> balances = new ArrayList<>();
+      BigDecimal balance = this.openingBalance;
+      for (LocalDate day = this.firstDate; !day.isAfter(this.balanceDate); day = day.plusDays(1L)) {
+        balance = balance.add(this.movements.getOrDefault(day, BigDecimal.ZERO));
+
+        final InterestBearingBalanceEntity interestBearingBalanceEntity = new InterestBearingBalanceEntity();
+        interestBearingBalanceEntity.setAccountIdentifier(accountIdentifier);
+        interestBearingBalanceEntity.setBalanceDate(day);
+        interestBearingBalanceEntity.setBalance(balance);
+        balances.add(interestBearingBalanceEntity);
+      }
+      return balances;
+    }
+  }
+}
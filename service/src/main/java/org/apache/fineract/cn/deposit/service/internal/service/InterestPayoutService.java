@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.fineract.cn.accounting.api.v1.domain.Creditor;
+import org.apache.fineract.cn.accounting.api.v1.domain.Debtor;
+import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
+import org.apache.fineract.cn.api.util.UserContextHolder;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccruedInterestEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.AccruedInterestRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
+import org.apache.fineract.cn.lang.DateConverter;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Service
+public class InterestPayoutService {
+
+  private final Logger logger;
+  private final AccruedInterestRepository accruedInterestRepository;
+  private final DailyBalanceService dailyBalanceService;
+  private final InterestRunService interestRunService;
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${config.payoutChunkSize}")
+  private Integer payoutChunkSize;
+
+  @Autowired
+  public InterestPayoutService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                               final AccruedInterestRepository accruedInterestRepository,
+                               final DailyBalanceService dailyBalanceService,
+                               final InterestRunService interestRunService,
+                               final PlatformTransactionManager transactionManager) {
+    super();
+    this.logger = logger;
+    this.accruedInterestRepository = accruedInterestRepository;
+    this.dailyBalanceService = dailyBalanceService;
+    this.interestRunService = interestRunService;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  /**
+   * Pays out all accrued interest of the given product, posting two journal entries per chunk of accounts: one from
+   * the accrue accounts to the expense account, and one from the expense account to all customer accounts of the
+   * chunk. Each chunk removes its accrued interest in its own transaction, so a retried pay-out continues with the
+   * accounts not yet paid. The journal entries are identified by the run and the chunk, so a chunk retried after a
+   * failed commit does not post again.
+   */
+  public void payout(final ProductDefinitionEntity productDefinitionEntity, final Long interestRunId) {
+    boolean completed = false;
+    while (!completed) {
+      completed = this.transactionTemplate.execute(status -> this.payoutChunk(productDefinitionEntity, interestRunId));
+    }
+  }
+
+  private boolean payoutChunk(final ProductDefinitionEntity productDefinitionEntity, final Long interestRunId) {
+    final List<AccruedInterestEntity> accruedInterests =
+        this.accruedInterestRepository.findPayable(productDefinitionEntity, new PageRequest(0, this.payoutChunkSize));
+    if (accruedInterests.isEmpty()) {
+      return true;
+    }
+
+    final HashMap<String, BigDecimal> accrueAmounts = new HashMap<>();
+    final HashMap<String, BigDecimal> customerAmounts = new HashMap<>();
+    accruedInterests.forEach(accruedInterestEntity -> {
+      final BigDecimal roundedAmount =
+          BigDecimal.valueOf(accruedInterestEntity.getAmount()).setScale(2, BigDecimal.ROUND_HALF_EVEN);
+      accrueAmounts.merge(accruedInterestEntity.getAccrueAccountIdentifier(), roundedAmount, BigDecimal::add);
+      customerAmounts.merge(accruedInterestEntity.getCustomerAccountIdentifier(), roundedAmount, BigDecimal::add);
+    });
+
+    this.accruedInterestRepository.deleteInBatch(accruedInterests);
+
+    final BigDecimal total = customerAmounts.values().stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+    if (total.compareTo(BigDecimal.ZERO) > 0) {
+      final String expenseAccount = productDefinitionEntity.getExpenseAccountIdentifier();
+
+      // a chunk retried after a failed commit finds the same accrued interest first
+      final String chunk = "payout/" + accruedInterests.get(0).getId();
+
+      this.interestRunService.post(interestRunId, this.journalEntry(
+          InterestRunService.journalEntryIdentifier(interestRunId, chunk + "/accrue"),
+          this.debtors(accrueAmounts), this.creditors(Collections.singletonMap(expenseAccount, total))));
+
+      this.interestRunService.post(interestRunId, this.journalEntry(
+          InterestRunService.journalEntryIdentifier(interestRunId, chunk + "/customer"),
+          this.debtors(Collections.singletonMap(expenseAccount, total)), this.creditors(customerAmounts)));
+      this.dailyBalanceService.recordLedgerMovements(customerAmounts);
+    }
+
+    this.logger.debug("Paid out interest of {} accounts of product {}.",
+        customerAmounts.size(), productDefinitionEntity.getIdentifier());
+
+    return false;
+  }
+
+  private JournalEntry journalEntry(final String transactionIdentifier, final Set<Debtor> debtors,
+                                    final Set<Creditor> creditors) {
+    final JournalEntry journalEntry = new JournalEntry();
+    journalEntry.setTransactionIdentifier(transactionIdentifier);
+    journalEntry.setTransactionDate(DateConverter.toIsoString(LocalDateTime.now(Clock.systemUTC())));
+    journalEntry.setTransactionType("INTR");
+    journalEntry.setClerk(UserContextHolder.checkedGetUser());
+    journalEntry.setNote("Interest paid.");
+    journalEntry.setDebtors(debtors);
+    journalEntry.setCreditors(creditors);
+    return journalEntry;
+  }
+
+  private Set<Debtor> debtors(final Map<String, BigDecimal> amounts) {
+    return amounts.entrySet().stream()
+        .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) > 0)
+        .map(entry -> {
+          final Debtor debtor = new Debtor();
+          debtor.setAccountNumber(entry.getKey());
+          debtor.setAmount(entry.getValue().toString());
+          return debtor;
+        })
+        .collect(Collectors.toSet());
+  }
+
+  private Set<Creditor> creditors(final Map<String, BigDecimal> amounts) {
+    return amounts.entrySet().stream()
+        .filter(entry -> entry.getValue().compareTo(BigDecimal.ZERO) > 0)
+        .map(entry -> {
+          final Creditor creditor = new Creditor();
+          creditor.setAccountNumber(entry.getKey());
+          creditor.setAmount(entry.getValue().toString());
+          return creditor;
+        })
+        .collect(Collectors.toSet());
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestRunEntity;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestRunJournalRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.InterestRunRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.AccountingService;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Keeps track of accrual and pay-out runs per product and due date, so that a replayed beat does not post twice.
+ */
+@Service
+public class InterestRunService {
+
+  public static final String ACCRUAL = "ACCRUAL";
+  public static final String PAYOUT = "PAYOUT";
+
+  private static final String STARTED = "STARTED";
+  private static final String COMPLETED = "COMPLETED";
+
+  private final Logger logger;
+  private final InterestRunRepository interestRunRepository;
+  private final InterestRunJournalRepository interestRunJournalRepository;
+  private final AccountingService accountingService;
+
+  @Autowired
+  public InterestRunService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                            final InterestRunRepository interestRunRepository,
+                            final InterestRunJournalRepository interestRunJournalRepository,
+                            final AccountingService accountingService) {
+    super();
+    this.logger = logger;
+    this.interestRunRepository = interestRunRepository;
+    this.interestRunJournalRepository = interestRunJournalRepository;
+    this.accountingService = accountingService;
+  }
+
+  /**
+   * @return the identifier of the journal entry booking the given part of a run, the same on every attempt.
+   */
+  public static String journalEntryIdentifier(final Long interestRunId, final String part) {
+    return UUID.nameUUIDFromBytes(("interest-run/" + interestRunId + "/" + part).getBytes(StandardCharsets.UTF_8))
+        .toString().replace("-", "");
+  }
+
+  /**
+   * @return the id of the run to continue with, or null if the run already completed.
+   */
+  @Transactional
+  public Long start(final ProductDefinitionEntity productDefinitionEntity, final LocalDate dueDate,
+                    final String runType) {
+    final InterestRunEntity interestRunEntity = this.interestRunRepository
+        .findByProductDefinitionAndDueDateAndRunType(productDefinitionEntity, dueDate, runType)
+        .orElseGet(() -> {
+          final InterestRunEntity newInterestRun = new InterestRunEntity();
+          newInterestRun.setProductDefinition(productDefinitionEntity);
+          newInterestRun.setDueDate(dueDate);
+          newInterestRun.setRunType(runType);
+          newInterestRun.setState(STARTED);
+          newInterestRun.setCreatedOn(LocalDateTime.now(Clock.systemUTC()));
+          return this.interestRunRepository.save(newInterestRun);
+        });
+
+    if (COMPLETED.equals(interestRunEntity.getState())) {
+      this.logger.info("{} of product {} for {} already completed, skipping.",
+          runType, productDefinitionEntity.getIdentifier(), dueDate);
+      return null;
+    }
+    return interestRunEntity.getId();
+  }
+
+  /**
+   * Posts the given journal entry for the run, unless the run already recorded it. The identifier is claimed first by
+   * inserting its unique record, and only the worker whose insert wins posts; a concurrent claim waits for the other
+   * transaction and backs off once it commits. The claim joins the caller's transaction, so it is rolled back together
+   * with the chunk, and no second connection is held while the ledger is called. An entry booked by the ledger but
+   * whose claim was rolled back is recognized by its identifier on the next attempt, see
+   * {@link #journalEntryIdentifier(Long, String)}.
+   */
+  @Transactional
+  public void post(final Long interestRunId, final JournalEntry journalEntry) {
+    final String transactionIdentifier = journalEntry.getTransactionIdentifier();
+    if (this.interestRunJournalRepository.claim(interestRunId, transactionIdentifier,
+        Timestamp.valueOf(LocalDateTime.now(Clock.systemUTC()))) == 0) {
+      this.logger.info("Journal entry {} of interest run {} already posted, skipping.",
+          transactionIdentifier, interestRunId);
+      return;
+    }
+
+    this.accountingService.postOnce(journalEntry);
+  }
+
+  @Transactional
+  public void complete(final Long interestRunId) {
+    final InterestRunEntity interestRunEntity = this.interestRunRepository.findOne(interestRunId);
+    interestRunEntity.setState(COMPLETED);
+    interestRunEntity.setCompletedOn(LocalDateTime.now(Clock.systemUTC()));
+    this.interestRunRepository.save(interestRunEntity);
+  }
+}
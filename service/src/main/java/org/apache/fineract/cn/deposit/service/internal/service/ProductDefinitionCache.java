@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.Charge;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionTypeEnum;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded cache of hydrated product definitions and their charges by transaction type, one per tenant. Cached
+ * definitions are shared between callers and must not be modified. Hit and miss counts summed over all tenants
+ * are exposed through JMX.
+ */
+@Component
+@ManagedResource(objectName = "org.apache.fineract.cn.deposit:type=Cache,name=ProductDefinitionCache")
+public class ProductDefinitionCache {
+
+  private final Logger logger;
+  private final Integer maximumSize;
+  private final Integer expiryInSeconds;
+  private final ConcurrentMap<String, Cache<String, Entry>> tenantCaches = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, AtomicLong> tenantGenerations = new ConcurrentHashMap<>();
+
+  @Autowired
+  public ProductDefinitionCache(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                                @Value("${config.productDefinitionCacheSize}") final Integer maximumSize,
+                                @Value("${config.productDefinitionCacheExpiryInSeconds}") final Integer expiryInSeconds) {
+    super();
+    this.logger = logger;
+    this.maximumSize = maximumSize;
+    this.expiryInSeconds = expiryInSeconds;
+  }
+
+  public Optional<Entry> get(final String identifier, final Supplier<Optional<Entry>> loader) {
+    final String tenantIdentifier = TenantContextHolder.checkedGetIdentifier();
+    final Cache<String, Entry> cache = this.tenantCache(tenantIdentifier);
+    final Entry cachedEntry = cache.getIfPresent(identifier);
+    if (cachedEntry != null) {
+      return Optional.of(cachedEntry);
+    }
+
+    final AtomicLong generation = this.generation(tenantIdentifier);
+    final long loadedGeneration = generation.get();
+    final Optional<Entry> optionalEntry = loader.get();
+
+    // a load that raced an invalidation may have read the state before the change, it is used but not kept
+    optionalEntry.ifPresent(entry -> {
+      if (generation.get() == loadedGeneration) {
+        cache.put(identifier, entry);
+        if (generation.get() != loadedGeneration) {
+          cache.asMap().remove(identifier, entry);
+        }
+      }
+    });
+    return optionalEntry;
+  }
+
+  /**
+   * Drops all definitions of the current tenant. Inside a transaction this happens after commit, so that a
+   * concurrent read can not load the old state again before the change is visible.
+   */
+  public void invalidate() {
+    final String tenantIdentifier = TenantContextHolder.checkedGetIdentifier();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+          invalidate(tenantIdentifier);
+        }
+      });
+    } else {
+      this.invalidate(tenantIdentifier);
+    }
+  }
+
+  @ManagedOperation
+  public void invalidateAll() {
+    this.tenantGenerations.values().forEach(AtomicLong::incrementAndGet);
+    this.tenantCaches.values().forEach(Cache::invalidateAll);
+  }
+
+  @ManagedAttribute
+  public long getHitCount() {
+    return this.stats().hitCount();
+  }
+
+  @ManagedAttribute
+  public long getMissCount() {
+    return this.stats().missCount();
+  }
+
+  @ManagedAttribute
+  public double getHitRate() {
+    return this.stats().hitRate();
+  }
+
+  @ManagedAttribute
+  public long getEvictionCount() {
+    return this.stats().evictionCount();
+  }
+
+  @ManagedAttribute
+  public long getSize() {
+    return this.tenantCaches.values().stream().mapToLong(Cache::size).sum();
+  }
+
+  private void invalidate(final String tenantIdentifier) {
+    this.generation(tenantIdentifier).incrementAndGet();
+    final Cache<String, Entry> cache = this.tenantCaches.get(tenantIdentifier);
+    if (cache != null) {
+      this.logger.debug("Invalidating product definitions of tenant {}.", tenantIdentifier);
+      cache.invalidateAll();
+    }
+  }
+
+  private Cache<String, Entry> tenantCache(final String tenantIdentifier) {
+    return this.tenantCaches.computeIfAbsent(tenantIdentifier,
+        key -> CacheBuilder.newBuilder()
+            .maximumSize(this.maximumSize)
+            .expireAfterWrite(this.expiryInSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build());
+  }
+
+  private AtomicLong generation(final String tenantIdentifier) {
+    return this.tenantGenerations.computeIfAbsent(tenantIdentifier, key -> new AtomicLong());
+  }
+
+  private CacheStats stats() {
+    return this.tenantCaches.values()
+        .stream()
+        .map(Cache::stats)
+        .reduce(new CacheStats(0L, 0L, 0L, 0L, 0L, 0L), CacheStats::plus);
+  }
+
+  public static final class Entry {
+
+    private final ProductDefinition productDefinition;
+    private final Map<TransactionTypeEnum, List<Charge>> chargesByTransactionType;
+
+    public Entry(final ProductDefinition productDefinition,
+                 final Map<TransactionTypeEnum, List<Charge>> chargesByTransactionType) {
+      super();
+      this.productDefinition = productDefinition;
+      this.chargesByTransactionType = chargesByTransactionType;
+    }
+
+    public ProductDefinition productDefinition() {
+      return this.productDefinition;
+    }
+
+    public List<Charge> charges(final TransactionTypeEnum transactionType) {
+      return this.chargesByTransactionType.getOrDefault(transactionType, Collections.emptyList());
+    }
+  }
+}
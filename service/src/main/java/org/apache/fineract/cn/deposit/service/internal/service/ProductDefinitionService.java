@@ -18,9 +18,14 @@
  */
 package org.apache.fineract.cn.deposit.service.internal.service;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.Charge;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.DividendDistribution;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionCommand;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionPage;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionTypeEnum;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.mapper.ChargeMapper;
 import org.apache.fineract.cn.deposit.service.internal.mapper.CurrencyMapper;
@@ -28,27 +33,51 @@ import org.apache.fineract.cn.deposit.service.internal.mapper.DividendDistributi
 import org.apache.fineract.cn.deposit.service.internal.mapper.ProductDefinitionCommandMapper;
 import org.apache.fineract.cn.deposit.service.internal.mapper.ProductDefinitionMapper;
 import org.apache.fineract.cn.deposit.service.internal.mapper.TermMapper;
+import org.apache.fineract.cn.deposit.service.internal.repository.ActionEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.ActionRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ChargeEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.ChargeRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.CurrencyEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.CurrencyRepository;
 import org.apache.fineract.cn.deposit.service.internal.repository.DividendDistributionRepository;
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionCommandRepository;
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.TermEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.TermRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.KeysetCursor;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class ProductDefinitionService {
 
+  private static final Map<String, TransactionTypeEnum> TRANSACTION_TYPES = Arrays.stream(TransactionTypeEnum.values())
+      .collect(Collectors.toMap(TransactionTypeEnum::getCode, Function.identity()));
+
+  // both are unique, so no definition is skipped or repeated between pages
+  private static final Map<String, KeysetCursor.Column<ProductDefinitionEntity>> SORT_COLUMNS = ImmutableMap.of(
+      "id", KeysetCursor.Column.ofLong(ProductDefinitionEntity::getId),
+      "identifier", KeysetCursor.Column.ofString(ProductDefinitionEntity::getIdentifier));
+
   private final Logger logger;
   private final ProductDefinitionRepository productDefinitionRepository;
   private final ProductDefinitionCommandRepository productDefinitionCommandRepository;
@@ -57,6 +86,11 @@ public class ProductDefinitionService {
   private final CurrencyRepository currencyRepository;
   private final TermRepository termRepository;
   private final DividendDistributionRepository dividendDistributionRepository;
+  private final ProductDefinitionCache productDefinitionCache;
+  private final TransactionTemplate readOnlyTransactionTemplate;
+
+  @Value("${config.definitionPageMaxSize}")
+  private Integer definitionPageMaxSize;
 
   @Autowired
   public ProductDefinitionService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
@@ -66,7 +100,9 @@ public class ProductDefinitionService {
                                   final ChargeRepository chargeRepository,
                                   final CurrencyRepository currencyRepository,
                                   final TermRepository termRepository,
-                                  final DividendDistributionRepository dividendDistributionRepository) {
+                                  final DividendDistributionRepository dividendDistributionRepository,
+                                  final ProductDefinitionCache productDefinitionCache,
+                                  final PlatformTransactionManager transactionManager) {
     super();
     this.logger = logger;
     this.productDefinitionRepository = productDefinitionRepository;
@@ -76,35 +112,118 @@ public class ProductDefinitionService {
     this.currencyRepository = currencyRepository;
     this.termRepository = termRepository;
     this.dividendDistributionRepository = dividendDistributionRepository;
+    this.productDefinitionCache = productDefinitionCache;
+    this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+    this.readOnlyTransactionTemplate.setReadOnly(true);
   }
 
+  @Transactional(readOnly = true)
   public List<ProductDefinition> fetchProductDefinitions() {
-    return this.productDefinitionRepository.findAll()
+    return this.getProductDefinitions(this.productDefinitionRepository.findAll())
         .stream()
-        .map(this::getProductDefinition)
+        .map(ProductDefinitionCache.Entry::productDefinition)
         .collect(Collectors.toList());
   }
 
+  @Transactional(readOnly = true)
+  public ProductDefinitionPage fetchProductDefinitionPage(final Integer pageSize, final String sortColumn,
+                                                          final String sortDirection, final String continuationToken) {
+    final KeysetCursor<ProductDefinitionEntity> cursor =
+        KeysetCursor.parse(SORT_COLUMNS, "id", pageSize, this.definitionPageMaxSize, sortColumn, sortDirection,
+            continuationToken);
+    final List<ProductDefinitionEntity> rows = this.productDefinitionRepository.findKeysetPage(
+        cursor.getSortColumn(), cursor.isAscending(), cursor.getAfter(), cursor.getLimit());
+
+    final ProductDefinitionPage productDefinitionPage = new ProductDefinitionPage();
+    productDefinitionPage.setProductDefinitions(this.getProductDefinitions(cursor.page(rows))
+        .stream()
+        .map(ProductDefinitionCache.Entry::productDefinition)
+        .collect(Collectors.toList()));
+    productDefinitionPage.setContinuationToken(cursor.continuationToken(rows));
+    return productDefinitionPage;
+  }
+
+  /**
+   * Served from the product definition cache, the returned definition must not be modified.
+   */
   public Optional<ProductDefinition> findProductDefinition(final String identifier) {
-    return this.productDefinitionRepository.findByIdentifier(identifier)
-        .map(this::getProductDefinition);
+    return this.findCacheEntry(identifier).map(ProductDefinitionCache.Entry::productDefinition);
+  }
+
+  /**
+   * @return the charges of the given product whose action is of the given transaction type.
+   */
+  public List<Charge> findCharges(final String identifier, final TransactionTypeEnum transactionType) {
+    return this.findCacheEntry(identifier)
+        .map(entry -> entry.charges(transactionType))
+        .orElseGet(Collections::emptyList);
+  }
+
+  private Optional<ProductDefinitionCache.Entry> findCacheEntry(final String identifier) {
+    return this.productDefinitionCache.get(identifier, () -> this.readOnlyTransactionTemplate.execute(status ->
+        this.productDefinitionRepository.findByIdentifier(identifier)
+            .map(productDefinitionEntity ->
+                this.getProductDefinitions(Collections.singletonList(productDefinitionEntity)).get(0))));
   }
 
-  private ProductDefinition getProductDefinition(final ProductDefinitionEntity productDefinitionEntity) {
-    final ProductDefinition productDefinition = ProductDefinitionMapper.map(productDefinitionEntity);
-    productDefinition.setCurrency(
-        CurrencyMapper.map(this.currencyRepository.findByProductDefinition(productDefinitionEntity))
-    );
-    productDefinition.setTerm(
-        TermMapper.map(this.termRepository.findByProductDefinition(productDefinitionEntity))
-    );
-    productDefinition.setCharges(
-        this.chargeRepository.findByProductDefinition(productDefinitionEntity)
+  /**
+   * Loads currencies, terms, charges and the actions of the charges with one statement each for all given
+   * product definitions, instead of one per definition and charge.
+   */
+  private List<ProductDefinitionCache.Entry> getProductDefinitions(
+      final List<ProductDefinitionEntity> productDefinitionEntities) {
+    if (productDefinitionEntities.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    final Map<Long, CurrencyEntity> currencies = this.currencyRepository.findByProductDefinitionIn(productDefinitionEntities)
+        .stream()
+        .collect(Collectors.toMap(currencyEntity -> currencyEntity.getProductDefinition().getId(), Function.identity()));
+    final Map<Long, TermEntity> terms = this.termRepository.findByProductDefinitionIn(productDefinitionEntities)
+        .stream()
+        .collect(Collectors.toMap(termEntity -> termEntity.getProductDefinition().getId(), Function.identity()));
+    final Map<Long, List<ChargeEntity>> charges = this.chargeRepository.findByProductDefinitionIn(productDefinitionEntities)
+        .stream()
+        .collect(Collectors.groupingBy(chargeEntity -> chargeEntity.getProductDefinition().getId()));
+
+    final Set<Long> actionIds = charges.values()
+        .stream()
+        .flatMap(List::stream)
+        .map(ChargeEntity::getActionId)
+        .collect(Collectors.toSet());
+    final Map<Long, ActionEntity> actions = actionIds.isEmpty()
+        ? Collections.emptyMap()
+        : this.actionRepository.findAll(actionIds)
             .stream()
-            .map(chargeEntity -> ChargeMapper.map(chargeEntity, this.actionRepository))
-            .collect(Collectors.toSet())
-    );
-    return productDefinition;
+            .collect(Collectors.toMap(ActionEntity::getId, Function.identity()));
+
+    return productDefinitionEntities
+        .stream()
+        .map(productDefinitionEntity -> {
+          final ProductDefinition productDefinition = ProductDefinitionMapper.map(productDefinitionEntity);
+          productDefinition.setCurrency(CurrencyMapper.map(currencies.get(productDefinitionEntity.getId())));
+          productDefinition.setTerm(TermMapper.map(terms.get(productDefinitionEntity.getId())));
+
+          final Set<Charge> productCharges = new HashSet<>();
+          final Map<TransactionTypeEnum, List<Charge>> chargesByTransactionType =
+              new EnumMap<>(TransactionTypeEnum.class);
+          charges.getOrDefault(productDefinitionEntity.getId(), Collections.emptyList()).forEach(chargeEntity -> {
+            final ActionEntity actionEntity = actions.get(chargeEntity.getActionId());
+            final Charge charge = ChargeMapper.map(chargeEntity, actionEntity.getIdentifier());
+            productCharges.add(charge);
+            final TransactionTypeEnum transactionType = TRANSACTION_TYPES.get(actionEntity.getTransactionType());
+            if (transactionType != null) {
+              chargesByTransactionType.computeIfAbsent(transactionType, key -> new ArrayList<>()).add(charge);
+            }
+          });
+          productDefinition.setCharges(productCharges);
+
+          final ImmutableMap.Builder<TransactionTypeEnum, List<Charge>> chargeIndex = ImmutableMap.builder();
+          chargesByTransactionType.forEach((transactionType, typeCharges) ->
+              chargeIndex.put(transactionType, ImmutableList.copyOf(typeCharges)));
+          return new ProductDefinitionCache.Entry(productDefinition, chargeIndex.build());
+        })
+        .collect(Collectors.toList());
   }
 
   public List<ProductDefinitionCommand> findCommands(final String identifier) {
@@ -18,71 +18,172 @@
  */
 package org.apache.fineract.cn.deposit.service.internal.service;
 
+import com.google.common.collect.ImmutableMap;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstancePage;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.mapper.ProductInstanceMapper;
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductDefinitionRepository;
+import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
 import org.apache.fineract.cn.deposit.service.internal.service.helper.AccountingService;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.ContextAwareExecutor;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.KeysetCursor;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.LedgerAccountCache;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
 import org.apache.fineract.cn.accounting.api.v1.domain.Account;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class ProductInstanceService {
 
+  // both are unique, so no instance is skipped or repeated between pages
+  private static final Map<String, KeysetCursor.Column<ProductInstanceEntity>> SORT_COLUMNS = ImmutableMap.of(
+      "id", KeysetCursor.Column.ofLong(ProductInstanceEntity::getId),
+      "accountIdentifier", KeysetCursor.Column.ofString(ProductInstanceEntity::getAccountIdentifier));
+
   private final Logger logger;
   private final ProductInstanceRepository productInstanceRepository;
   private final ProductDefinitionRepository productDefinitionRepository;
   private final AccountingService accountingService;
+  private final LedgerAccountCache ledgerAccountCache;
+  private final ContextAwareExecutor ledgerLookupExecutor;
+
+  @Value("${config.instancePageMaxSize}")
+  private Integer instancePageMaxSize;
 
   @Autowired
   public ProductInstanceService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
                                 final ProductInstanceRepository productInstanceRepository,
                                 final ProductDefinitionRepository productDefinitionRepository,
-                                final AccountingService accountingService) {
+                                final AccountingService accountingService,
+                                final LedgerAccountCache ledgerAccountCache,
+                                @Value("${config.ledgerLookupParallelism}") final Integer ledgerLookupParallelism) {
     super();
     this.logger = logger;
     this.productInstanceRepository = productInstanceRepository;
     this.productDefinitionRepository = productDefinitionRepository;
     this.accountingService = accountingService;
+    this.ledgerAccountCache = ledgerAccountCache;
+    // own pool, so listings do not queue behind accrual chunks on the shared batch pool
+    this.ledgerLookupExecutor = new ContextAwareExecutor(logger, ledgerLookupParallelism);
   }
 
   public List<ProductInstance> findByCustomer(final String customerIdentifier) {
-    return this.productInstanceRepository.findByCustomerIdentifier(customerIdentifier)
-        .stream()
-        .map(productInstanceEntity -> {
-          final Account account = this.accountingService.findAccount(productInstanceEntity.getAccountIdentifier());
-          return ProductInstanceMapper.map(productInstanceEntity, account);
-        }).
-        collect(Collectors.toList());
+    return this.map(this.productInstanceRepository.findByCustomerIdentifier(customerIdentifier),
+        Collections.emptyMap());
   }
 
   public List<ProductInstance> findByProductDefinition(final String identifier) {
     final Optional<ProductDefinitionEntity> optionalProductDefinition = this.productDefinitionRepository.findByIdentifier(identifier);
 
     return optionalProductDefinition
-        .map(productDefinitionEntity -> this.productInstanceRepository.findByProductDefinition(productDefinitionEntity)
-          .stream()
-          .map(productInstanceEntity -> {
-            final Account account = this.accountingService.findAccount(productInstanceEntity.getAccountIdentifier());
-            return ProductInstanceMapper.map(productInstanceEntity, account);
-          })
-          .collect(Collectors.toList())).orElseGet(Collections::emptyList);
+        .map(productDefinitionEntity -> {
+          final Map<String, Account> ledgerAccounts =
+              this.accountingService.fetchAccountsOfLedger(productDefinitionEntity.getEquityLedgerIdentifier());
+          return this.map(this.productInstanceRepository.findByProductDefinition(productDefinitionEntity),
+              ledgerAccounts);
+        }).orElseGet(Collections::emptyList);
+
+  }
+
+  public ProductInstancePage findPageByCustomer(final String customerIdentifier, final Integer pageSize,
+                                                final String sortColumn, final String sortDirection,
+                                                final String continuationToken) {
+    final KeysetCursor<ProductInstanceEntity> cursor =
+        KeysetCursor.parse(SORT_COLUMNS, "id", pageSize, this.instancePageMaxSize, sortColumn, sortDirection,
+            continuationToken);
+    return this.page(cursor, this.productInstanceRepository.findKeysetPageByCustomerIdentifier(customerIdentifier,
+        cursor.getSortColumn(), cursor.isAscending(), cursor.getAfter(), cursor.getLimit()));
+  }
+
+  public ProductInstancePage findPageByProductDefinition(final String identifier, final Integer pageSize,
+                                                         final String sortColumn, final String sortDirection,
+                                                         final String continuationToken) {
+    final KeysetCursor<ProductInstanceEntity> cursor =
+        KeysetCursor.parse(SORT_COLUMNS, "id", pageSize, this.instancePageMaxSize, sortColumn, sortDirection,
+            continuationToken);
+    final List<ProductInstanceEntity> rows = this.productDefinitionRepository.findByIdentifier(identifier)
+        .map(productDefinitionEntity -> this.productInstanceRepository.findKeysetPageByProductDefinition(
+            productDefinitionEntity, cursor.getSortColumn(), cursor.isAscending(), cursor.getAfter(),
+            cursor.getLimit()))
+        .orElseGet(Collections::emptyList);
+    return this.page(cursor, rows);
+  }
+
+  public boolean hasInstances(final String productDefinitionIdentifier) {
+    return this.productDefinitionRepository.findByIdentifier(productDefinitionIdentifier)
+        .map(productDefinitionEntity -> this.productInstanceRepository.countByProductDefinition(productDefinitionEntity) > 0L)
+        .orElse(false);
+  }
 
+  public boolean existsByAccountIdentifier(final String identifier) {
+    return this.productInstanceRepository.countByAccountIdentifier(identifier) > 0L;
   }
 
   public Optional<ProductInstance> findByAccountIdentifier(final String identifier) {
     return this.productInstanceRepository.findByAccountIdentifier(identifier).map(productInstanceEntity -> {
-      final Account account = this.accountingService.findAccount(productInstanceEntity.getAccountIdentifier());
+      final Account account = this.findCachedAccount(productInstanceEntity.getAccountIdentifier());
       return ProductInstanceMapper.map(productInstanceEntity, account);
     });
   }
+
+  @PreDestroy
+  public void shutdown() {
+    this.ledgerLookupExecutor.shutdown();
+  }
+
+  /**
+   * Same as {@link AccountingService#findAccount(String)}, but may answer from a cache that is a few seconds old.
+   * For listings only.
+   */
+  private Account findCachedAccount(final String accountIdentifier) {
+    return this.ledgerAccountCache.get(accountIdentifier, () -> this.accountingService.findAccount(accountIdentifier));
+  }
+
+  /**
+   * Maps the instances in order, taking accounts from the given ones where possible and looking up the rest
+   * concurrently.
+   */
+  private List<ProductInstance> map(final List<ProductInstanceEntity> productInstanceEntities,
+                                    final Map<String, Account> knownAccounts) {
+    final List<String> missingAccountIdentifiers = productInstanceEntities.stream()
+        .map(ProductInstanceEntity::getAccountIdentifier)
+        .filter(accountIdentifier -> !knownAccounts.containsKey(accountIdentifier))
+        .distinct()
+        .collect(Collectors.toList());
+    final List<Account> missingAccounts = this.ledgerLookupExecutor.invokeAll(missingAccountIdentifiers.stream()
+        .map(accountIdentifier -> (Callable<Account>) () -> this.findCachedAccount(accountIdentifier))
+        .collect(Collectors.toList()));
+
+    final HashMap<String, Account> accounts = new HashMap<>(knownAccounts);
+    for (int i = 0; i < missingAccountIdentifiers.size(); i++) {
+      accounts.put(missingAccountIdentifiers.get(i), missingAccounts.get(i));
+    }
+    return productInstanceEntities.stream()
+        .map(productInstanceEntity ->
+            ProductInstanceMapper.map(productInstanceEntity, accounts.get(productInstanceEntity.getAccountIdentifier())))
+        .collect(Collectors.toList());
+  }
+
+  private ProductInstancePage page(final KeysetCursor<ProductInstanceEntity> cursor,
+                                   final List<ProductInstanceEntity> rows) {
+    final ProductInstancePage productInstancePage = new ProductInstancePage();
+    productInstancePage.setProductInstances(this.map(cursor.page(rows), Collections.emptyMap()));
+    productInstancePage.setContinuationToken(cursor.continuationToken(rows));
+    return productInstancePage;
+  }
+
 }
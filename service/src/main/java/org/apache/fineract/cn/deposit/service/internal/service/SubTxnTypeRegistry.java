@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.SubTransactionType;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.deposit.service.internal.mapper.SubTransactionTypeMapper;
+import org.apache.fineract.cn.deposit.service.internal.repository.SubTransactionTypeRepository;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * All sub transaction types of a tenant, loaded on first use and reloaded after a sub transaction type was created
+ * or changed on this node, or once they expired, which picks up changes made on other nodes. Returned sub
+ * transaction types are shared between callers and must not be modified.
+ */
+@Component
+public class SubTxnTypeRegistry {
+
+  private final Logger logger;
+  private final SubTransactionTypeRepository subTransactionTypeRepository;
+  private final Cache<String, Map<String, Entry>> tenantEntries;
+  private final ConcurrentMap<String, AtomicLong> tenantGenerations = new ConcurrentHashMap<>();
+
+  @Autowired
+  public SubTxnTypeRegistry(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                            final SubTransactionTypeRepository subTransactionTypeRepository,
+                            @Value("${config.subTxnTypeCacheExpiryInSeconds}") final Integer expiryInSeconds) {
+    super();
+    this.logger = logger;
+    this.subTransactionTypeRepository = subTransactionTypeRepository;
+    this.tenantEntries = CacheBuilder.newBuilder()
+        .expireAfterWrite(expiryInSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  public Optional<SubTransactionType> find(final String identifier) {
+    return Optional.ofNullable(this.entries().get(identifier)).map(Entry::subTransactionType);
+  }
+
+  public List<SubTransactionType> findAll() {
+    final List<SubTransactionType> subTransactionTypes = new ArrayList<>();
+    this.entries().values().forEach(entry -> subTransactionTypes.add(entry.subTransactionType()));
+    return subTransactionTypes;
+  }
+
+  /**
+   * @return all entries by sub transaction type identifier, in the order they were loaded.
+   */
+  public Map<String, Entry> entries() {
+    final String tenantIdentifier = TenantContextHolder.checkedGetIdentifier();
+    final Map<String, Entry> cachedEntries = this.tenantEntries.getIfPresent(tenantIdentifier);
+    if (cachedEntries != null) {
+      return cachedEntries;
+    }
+
+    final AtomicLong generation = this.generation(tenantIdentifier);
+    final long loadedGeneration = generation.get();
+
+    this.logger.debug("Loading sub transaction types of tenant {}.", tenantIdentifier);
+    final ImmutableMap.Builder<String, Entry> builder = ImmutableMap.builder();
+    this.subTransactionTypeRepository.findAll().forEach(subTransactionTypeEntity ->
+        builder.put(subTransactionTypeEntity.getIdentifier(), new Entry(
+            SubTransactionTypeMapper.map(subTransactionTypeEntity),
+            subTransactionTypeEntity.getIbbConfPlusDays(),
+            subTransactionTypeEntity.getIbbConfMinusDays())));
+    final Map<String, Entry> entries = builder.build();
+
+    // a load that raced an invalidation may have read the state before the change, it is used but not kept
+    if (generation.get() == loadedGeneration) {
+      this.tenantEntries.put(tenantIdentifier, entries);
+      if (generation.get() != loadedGeneration) {
+        this.tenantEntries.asMap().remove(tenantIdentifier, entries);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Drops the sub transaction types of the current tenant, after commit if called inside a transaction.
+   */
+  public void invalidate() {
+    final String tenantIdentifier = TenantContextHolder.checkedGetIdentifier();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+        @Override
+        public void afterCommit() {
+          invalidate(tenantIdentifier);
+        }
+      });
+    } else {
+      this.invalidate(tenantIdentifier);
+    }
+  }
+
+  private void invalidate(final String tenantIdentifier) {
+    this.generation(tenantIdentifier).incrementAndGet();
+    this.tenantEntries.invalidate(tenantIdentifier);
+  }
+
+  private AtomicLong generation(final String tenantIdentifier) {
+    return this.tenantGenerations.computeIfAbsent(tenantIdentifier, key -> new AtomicLong());
+  }
+
+  public static final class Entry {
+
+    private final SubTransactionType subTransactionType;
+    private final int ibbPlusDays;
+    private final int ibbMinusDays;
+
+    private Entry(final SubTransactionType subTransactionType, final Integer ibbPlusDays,
+                  final Integer ibbMinusDays) {
+      super();
+      this.subTransactionType = subTransactionType;
+      this.ibbPlusDays = ibbPlusDays != null ? ibbPlusDays : 0;
+      this.ibbMinusDays = ibbMinusDays != null ? ibbMinusDays : 0;
+    }
+
+    public SubTransactionType subTransactionType() {
+      return this.subTransactionType;
+    }
+
+    public int ibbPlusDays() {
+      return this.ibbPlusDays;
+    }
+
+    public int ibbMinusDays() {
+      return this.ibbMinusDays;
+    }
+  }
+}
@@ -25,8 +25,6 @@ import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.SubTransactionType;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.mapper.ProductInstanceMapper;
-import org.apache.fineract.cn.deposit.service.internal.mapper.SubTransactionTypeMapper;
-import org.apache.fineract.cn.deposit.service.internal.repository.SubTransactionTypeRepository;
 import org.apache.fineract.cn.deposit.service.internal.service.helper.AccountingService;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
@@ -36,29 +34,27 @@ import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class SubTxnTypesService {
     private final Logger logger;
-    private final SubTransactionTypeRepository subTransactionTypeRepository;
+    private final SubTxnTypeRegistry subTxnTypeRegistry;
     private final LedgerManager ledgerManager;
 
     @Autowired
     public SubTxnTypesService(@Qualifier(ServiceConstants.LOGGER_NAME) Logger logger,
-                              SubTransactionTypeRepository subTransactionTypeRepository,
+                              SubTxnTypeRegistry subTxnTypeRegistry,
                               LedgerManager ledgerManager) {
         this.logger = logger;
-        this.subTransactionTypeRepository = subTransactionTypeRepository;
+        this.subTxnTypeRegistry = subTxnTypeRegistry;
         this.ledgerManager = ledgerManager;
     }
 
     public Optional<SubTransactionType> findByIdentifier(final String identifier) {
-        return this.subTransactionTypeRepository.findByIdentifier(identifier).map(SubTransactionTypeMapper::map);
+        return this.subTxnTypeRegistry.find(identifier);
     }
     public List<SubTransactionType> findAll() {
-        return this.subTransactionTypeRepository.findAll()
-                .stream().map(SubTransactionTypeMapper::map).collect(Collectors.toList());
+        return this.subTxnTypeRegistry.findAll();
     }
 
     public Boolean subTxnTypeExists(final String identifier) {
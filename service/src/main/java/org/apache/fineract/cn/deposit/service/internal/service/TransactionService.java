@@ -18,6 +18,8 @@
  */
 package org.apache.fineract.cn.deposit.service.internal.service;
 
+import feign.FeignException;
+import feign.RetryableException;
 import org.apache.commons.lang.StringUtils;
 import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
 import org.apache.fineract.cn.accounting.api.v1.domain.Account;
@@ -26,7 +28,6 @@ import org.apache.fineract.cn.accounting.api.v1.domain.Debtor;
 import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
 import org.apache.fineract.cn.anubis.security.AccountLevelAccessVerifierCustom;
 import org.apache.fineract.cn.api.util.UserContextHolder;
-import org.apache.fineract.cn.deposit.api.v1.definition.domain.Action;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.Charge;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.Currency;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
@@ -39,6 +40,9 @@ import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanc
 import org.apache.fineract.cn.deposit.service.internal.repository.ProductInstanceRepository;
 import org.apache.fineract.cn.deposit.service.internal.repository.TransactionEntity;
 import org.apache.fineract.cn.deposit.service.internal.repository.TransactionRepository;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.JournalEntryOutcomeUnknownException;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.LedgerAccountCache;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.TimeOrderedUuid;
 import org.apache.fineract.cn.lang.DateConverter;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
@@ -50,6 +54,8 @@ import org.springframework.transaction.annotation.Transactional;
 import javax.validation.constraints.NotNull;
 import java.math.BigDecimal;
 import java.math.MathContext;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
 import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.*;
@@ -63,42 +69,47 @@ public class TransactionService {
     private final Logger logger;
     private final LedgerManager ledgerManager;
     private final ProductDefinitionService productDefinitionService;
-    private final ActionService actionService;
     private final SubTxnTypesService subTxnTypesService;
     private final TransactionRepository transactionRepository;
     private final ProductInstanceRepository productInstanceRepository;
     private final AccountLevelAccessVerifierCustom accountAccessValidator;
+    private final LedgerAccountCache ledgerAccountCache;
 
     public static final String DEBIT = "DEBIT";
     public static final String CREDIT = "CREDIT";
 
     @Autowired
     public TransactionService(@Qualifier(ServiceConstants.LOGGER_NAME) Logger logger, LedgerManager ledgerManager,
-                              ProductDefinitionService productDefinitionService, ActionService actionService,
+                              ProductDefinitionService productDefinitionService,
                               SubTxnTypesService subTxnTypesService, TransactionRepository transactionRepository,
                               ProductInstanceRepository productInstanceRepository,
-                              AccountLevelAccessVerifierCustom accountAccessValidator) {
+                              AccountLevelAccessVerifierCustom accountAccessValidator,
+                              LedgerAccountCache ledgerAccountCache) {
         this.logger = logger;
         this.ledgerManager = ledgerManager;
         this.productDefinitionService = productDefinitionService;
-        this.actionService = actionService;
         this.subTxnTypesService = subTxnTypesService;
         this.transactionRepository = transactionRepository;
         this.productInstanceRepository = productInstanceRepository;
         this.accountAccessValidator = accountAccessValidator;
+        this.ledgerAccountCache = ledgerAccountCache;
     }
 
     @Transactional
     public TransactionResponseData withdraw(TransactionCommand command) {
         TransactionRequestData request = command.getTransactionRequest();
         accountAccessValidator.validate(request.getAccountId(), ACCT_WITHDRAWAL_OPERATION);
+        Optional<TransactionResponseData> processed = findProcessedResponse(request, TransactionActionType.WITHDRAWAL);
+        if (processed.isPresent())
+            return processed.get();
         AccountWrapper accountWrapper = validateAndGetAccount(request, request.getAccountId(), TransactionTypeEnum.WITHDRAWAL);
         LocalDateTime transactionDate = getNow();
         //get txntype charges
         List<Charge> charges = getCharges(accountWrapper.productDefinition, TransactionTypeEnum.WITHDRAWAL);
         //todo: get subTxnType charges
 
-        TransactionEntity txn = doWithdraw(request, accountWrapper, charges, getNow(), request.getAccountId());
+        TransactionEntity txn = doWithdraw(request, accountWrapper, charges, getNow(), request.getAccountId(),
+                command.getTransactionIdentifier());
 
 
         return TransactionResponseData.build(request.getRoutingCode(), request.getExternalId(),
@@ -110,13 +121,17 @@ public class TransactionService {
     public TransactionResponseData deposit(TransactionCommand command) {
         TransactionRequestData request = command.getTransactionRequest();
         accountAccessValidator.validate(request.getAccountId(), ACCT_DEPOSIT_OPERATION);
+        Optional<TransactionResponseData> processed = findProcessedResponse(request, TransactionActionType.DEPOSIT);
+        if (processed.isPresent())
+            return processed.get();
         AccountWrapper accountWrapper = validateAndGetAccount(request, request.getAccountId(), TransactionTypeEnum.DEPOSIT);
 
         LocalDateTime transactionDate = getNow();
         //get txntype charges
         List<Charge> charges = getCharges(accountWrapper.productDefinition, TransactionTypeEnum.DEPOSIT);
         //todo: get subTxnType charges
-        TransactionEntity txn = doDeposit(request, accountWrapper, charges, getNow(), request.getAccountId());
+        TransactionEntity txn = doDeposit(request, accountWrapper, charges, getNow(), request.getAccountId(),
+                command.getTransactionIdentifier());
 
         return TransactionResponseData.build(request.getRoutingCode(), request.getExternalId(),
                 request.getRequestCode(), ActionState.ACCEPTED,
@@ -125,6 +140,9 @@ public class TransactionService {
 
     public TransactionResponseData transfer(TransactionCommand command) {
         TransactionRequestData request = command.getTransactionRequest();
+        Optional<TransactionResponseData> processed = findProcessedResponse(request, TransactionActionType.TRANSFER);
+        if (processed.isPresent())
+            return processed.get();
         AccountWrapper fromAccountWrapper = validateAndGetAccount(request, request.getFromAccountId(), TransactionTypeEnum.WITHDRAWAL);
         AccountWrapper toAccountWrapper = validateAndGetAccount(request, request.getToAccountId(), TransactionTypeEnum.DEPOSIT);
         LocalDateTime transactionDate = getNow();
@@ -132,8 +150,11 @@ public class TransactionService {
         List<Charge> charges = getCharges(fromAccountWrapper.productDefinition, TransactionTypeEnum.ACCOUNT_TRANSFER);
         //todo: get subTxnType charges
 
-        TransactionEntity txn = doWithdraw(request, fromAccountWrapper, charges, getNow(), request.getFromAccountId());
-        TransactionEntity txn2 = doDeposit(request, toAccountWrapper, new ArrayList<>(), getNow(), request.getToAccountId());
+        // the withdrawal leg carries the identifier the request was recorded with, the deposit leg gets its own
+        TransactionEntity txn = doWithdraw(request, fromAccountWrapper, charges, getNow(), request.getFromAccountId(),
+                command.getTransactionIdentifier());
+        TransactionEntity txn2 = doDeposit(request, toAccountWrapper, new ArrayList<>(), getNow(), request.getToAccountId(),
+                null);
 
         return TransactionResponseData.build(request.getRoutingCode(), request.getExternalId(),
                 request.getRequestCode(), ActionState.ACCEPTED,
@@ -141,23 +162,30 @@ public class TransactionService {
     }
 
     private TransactionEntity doDeposit(TransactionRequestData request, AccountWrapper accountWrapper,
-                                        List<Charge> charges, LocalDateTime transactionDate, String accountId) {
+                                        List<Charge> charges, LocalDateTime transactionDate, String accountId,
+                                        String txnIdentifier) {
+        PreparedTransaction prepared = prepareDeposit(request, accountWrapper, charges, transactionDate, accountId);
+        if (txnIdentifier != null)
+            prepared.assignIdentifier(txnIdentifier);
+        saveTransactions(accountWrapper, prepared.txn, prepared.chargeTxns);
+        postJournalEntry(prepared.journalEntry);
+        return prepared.txn;
+    }
+
+    PreparedTransaction prepareDeposit(TransactionRequestData request, AccountWrapper accountWrapper,
+                                       List<Charge> charges, LocalDateTime transactionDate, String accountId) {
         BigDecimal amount = request.getAmount().getAmount();
 
         TransactionEntity txn = createTransaction(request,TransactionTypeEnum.DEPOSIT, transactionDate, CREDIT,
-                null, accountId, accountWrapper.instance);
+                null, accountId);
 
         String debitAccountIdentifier = accountWrapper.productDefinition.getCashAccountIdentifier();
         /* if subtxn is provided and it has an account configured the do debit that account*/
-        if(StringUtils.isNotBlank(request.getSubTxnId())){
-            Optional<SubTransactionType> subTxnTypeOpt = this.subTxnTypesService.findByIdentifier(request.getSubTxnId());
-            if(subTxnTypeOpt.isPresent()) {
-                txn.setSubTxnType(subTxnTypeOpt.get().getIdentifier());
-                if (subTxnTypeOpt.get().getLedgerAccount() != null) {
-                    debitAccountIdentifier = subTxnTypeOpt.get().getLedgerAccount();
-                }
-            }else{
-                throw ServiceException.notFound("Sub Txn Type {0} not found.", request.getSubTxnId());
+        Optional<SubTransactionType> subTxnTypeOpt = findSubTxnType(request);
+        if (subTxnTypeOpt.isPresent()) {
+            txn.setSubTxnType(subTxnTypeOpt.get().getIdentifier());
+            if (subTxnTypeOpt.get().getLedgerAccount() != null) {
+                debitAccountIdentifier = subTxnTypeOpt.get().getLedgerAccount();
             }
         }
         final JournalEntry journalEntry = createJournalEntry(txn.getIdentifier(), TransactionTypeEnum.DEPOSIT.getCode(),
@@ -170,7 +198,7 @@ public class TransactionService {
         addDebtor(debitAccountIdentifier, amount.doubleValue(), debtors);
 
 
-        prepareCharges(request, accountWrapper, charges, debtors, creditors, txn, accountId);
+        List<TransactionEntity> chargeTxns = prepareCharges(request, accountWrapper, charges, debtors, creditors, txn, accountId);
 
         if (debtors.isEmpty()) // must be same size as creditors
             throw ServiceException.badRequest("Debit and Credit doesn't match");
@@ -178,31 +206,35 @@ public class TransactionService {
         journalEntry.setDebtors(debtors);
         journalEntry.setCreditors(creditors);
 
-        transactionRepository.save(txn);
-
-        ledgerManager.createJournalEntry(journalEntry);
-        return txn;
+        return new PreparedTransaction(txn, chargeTxns, journalEntry);
     }
 
 
     private TransactionEntity doWithdraw(@NotNull TransactionRequestData request, @NotNull AccountWrapper accountWrapper,
-                                 List<Charge> charges, LocalDateTime transactionDate, String accountId) {
+                                 List<Charge> charges, LocalDateTime transactionDate, String accountId,
+                                 String txnIdentifier) {
+        PreparedTransaction prepared = prepareWithdrawal(request, accountWrapper, charges, transactionDate, accountId);
+        if (txnIdentifier != null)
+            prepared.assignIdentifier(txnIdentifier);
+        saveTransactions(accountWrapper, prepared.txn, prepared.chargeTxns);
+        postJournalEntry(prepared.journalEntry);
+        return prepared.txn;
+    }
+
+    PreparedTransaction prepareWithdrawal(@NotNull TransactionRequestData request, @NotNull AccountWrapper accountWrapper,
+                                          List<Charge> charges, LocalDateTime transactionDate, String accountId) {
         BigDecimal amount = request.getAmount().getAmount();
 
         TransactionEntity txn = createTransaction(request, TransactionTypeEnum.WITHDRAWAL, transactionDate, DEBIT,
-                null, accountId, accountWrapper.instance);
+                null, accountId);
 
         String creditAccountIdentifier = accountWrapper.productDefinition.getCashAccountIdentifier();
         /* if subtxn is provided and it has an account configured the do credit that account*/
-        if(StringUtils.isNotBlank(request.getSubTxnId())){
-            Optional<SubTransactionType> subTxnTypeOpt = this.subTxnTypesService.findByIdentifier(request.getSubTxnId());
-            if(subTxnTypeOpt.isPresent()) {
-                txn.setSubTxnType(subTxnTypeOpt.get().getIdentifier());
-                if (subTxnTypeOpt.get().getLedgerAccount() != null) {
-                    creditAccountIdentifier = subTxnTypeOpt.get().getLedgerAccount();
-                }
-            }else{
-                throw ServiceException.notFound("Sub Txn Type {0} not found.", request.getSubTxnId());
+        Optional<SubTransactionType> subTxnTypeOpt = findSubTxnType(request);
+        if (subTxnTypeOpt.isPresent()) {
+            txn.setSubTxnType(subTxnTypeOpt.get().getIdentifier());
+            if (subTxnTypeOpt.get().getLedgerAccount() != null) {
+                creditAccountIdentifier = subTxnTypeOpt.get().getLedgerAccount();
             }
         }
         final JournalEntry journalEntry = createJournalEntry(txn.getIdentifier(), TransactionTypeEnum.WITHDRAWAL.getCode(),
@@ -214,23 +246,22 @@ public class TransactionService {
         addCreditor(creditAccountIdentifier, amount.doubleValue(), creditors);
         addDebtor(accountWrapper.account.getIdentifier(), amount.doubleValue(), debtors);
 
-        prepareCharges(request, accountWrapper, charges, debtors, creditors, txn, accountId);
+        List<TransactionEntity> chargeTxns = prepareCharges(request, accountWrapper, charges, debtors, creditors, txn, accountId);
 
         if (debtors.isEmpty()) // must be same size as creditors
             throw ServiceException.badRequest("Debit and Credit doesn't match");
 
         journalEntry.setDebtors(debtors);
         journalEntry.setCreditors(creditors);
-        transactionRepository.save(txn);
-        ledgerManager.createJournalEntry(journalEntry);
-        return txn;
+
+        return new PreparedTransaction(txn, chargeTxns, journalEntry);
     }
 
 
 
-    private void prepareCharges(@NotNull TransactionRequestData request, @NotNull AccountWrapper accountWrapper,
-                                @NotNull List<Charge> charges, HashSet<Debtor> debtors, HashSet<Creditor> creditors,
-                                TransactionEntity txn, String accountId) {
+    private List<TransactionEntity> prepareCharges(@NotNull TransactionRequestData request, @NotNull AccountWrapper accountWrapper,
+                                                   @NotNull List<Charge> charges, HashSet<Debtor> debtors, HashSet<Creditor> creditors,
+                                                   TransactionEntity txn, String accountId) {
 
 
         BigDecimal amount = request.getAmount().getAmount();
@@ -238,7 +269,7 @@ public class TransactionService {
 
         BigDecimal total = MathUtil.normalize(calcTotalCharges(charges, amount), currency);
         if (MathUtil.isEmpty(total)) {
-            return;
+            return Collections.emptyList();
         }
         txn.setFeeAmount(total);
 
@@ -248,64 +279,194 @@ public class TransactionService {
         if (debtors == null) {
             debtors = new HashSet<>(charges.size());
         }
+        List<TransactionEntity> chargeTxns = new ArrayList<>(charges.size());
         for(Charge charge : charges){
             addCreditor(charge.getIncomeAccountIdentifier(), calcChargeAmount(amount, charge).doubleValue(), creditors);
             addDebtor(accountWrapper.account.getIdentifier(), calcChargeAmount(amount, charge).doubleValue(), debtors);
-            createTransaction(request,TransactionTypeEnum.CHARGES_PAYMENT, getNow(), DEBIT, txn,
-                    accountId, accountWrapper.instance);
+            chargeTxns.add(createTransaction(request,TransactionTypeEnum.CHARGES_PAYMENT, getNow(), DEBIT, txn,
+                    accountId));
+        }
+        return chargeTxns;
+    }
+
+    /**
+     * Persists the fully built transaction, then its charge rows, and moves the last transaction date of the
+     * instance held by the request context with a single conditional update.
+     */
+    private void saveTransactions(AccountWrapper accountWrapper, TransactionEntity txn, List<TransactionEntity> chargeTxns) {
+        transactionRepository.save(txn);
+        if (!chargeTxns.isEmpty()) {
+            transactionRepository.save(chargeTxns);
+        }
+        productInstanceRepository.markLastTransaction(accountWrapper.instance.getId(), txn.getTransactionDate());
+    }
+
+    /**
+     * Parent rows already written for the routing code and external id of the request, a transfer has its debit
+     * row first. Requests without external id are never considered processed. Rows found for another action,
+     * account or amount mean the external id was reused for a different transaction, which is a conflict.
+     */
+    List<TransactionEntity> findProcessed(TransactionRequestData request, TransactionActionType action) {
+        if (StringUtils.isBlank(request.getExternalId())) {
+            return Collections.emptyList();
+        }
+        return checkProcessed(request, action, transactionRepository.findParentsByIdempotencyKey(
+                StringUtils.defaultString(request.getRoutingCode()), request.getExternalId()));
+    }
+
+    /**
+     * @param txns the parent rows found for the routing code and external id of the request
+     * @return the rows in the order their transaction code lists them, empty if the request was not processed yet.
+     */
+    List<TransactionEntity> checkProcessed(TransactionRequestData request, TransactionActionType action,
+                                           List<TransactionEntity> txns) {
+        List<TransactionEntity> processed = txns.stream()
+                .sorted(Comparator.comparing((TransactionEntity txn) -> CREDIT.equals(txn.getType())))
+                .collect(Collectors.toList());
+        if (!processed.isEmpty() && !isReplay(request, action, processed)) {
+            throw ServiceException.conflict("External id {0} was already used for a different transaction.",
+                    request.getExternalId());
+        }
+        return processed;
+    }
+
+    private static boolean isReplay(TransactionRequestData request, TransactionActionType action,
+                                    List<TransactionEntity> txns) {
+        switch (action) {
+            case DEPOSIT:
+                return txns.size() == 1
+                        && matches(txns.get(0), CREDIT, TransactionTypeEnum.DEPOSIT, request.getAccountId(), request);
+            case WITHDRAWAL:
+                return txns.size() == 1
+                        && matches(txns.get(0), DEBIT, TransactionTypeEnum.WITHDRAWAL, request.getAccountId(), request);
+            case TRANSFER:
+                return txns.size() == 2
+                        && matches(txns.get(0), DEBIT, TransactionTypeEnum.WITHDRAWAL, request.getFromAccountId(), request)
+                        && matches(txns.get(1), CREDIT, TransactionTypeEnum.DEPOSIT, request.getToAccountId(), request);
+            default:
+                return false;
+        }
+    }
+
+    private static boolean matches(TransactionEntity txn, String type, TransactionTypeEnum txnType, String accountId,
+                                   TransactionRequestData request) {
+        return type.equals(txn.getType())
+                && txnType == txn.getTransactionType()
+                && Objects.equals(accountId, txn.getAccountId())
+                && txn.getAmount().compareTo(request.getAmount().getAmount()) == 0;
+    }
+
+    static String transactionCode(List<TransactionEntity> txns) {
+        return txns.stream().map(TransactionEntity::getIdentifier).collect(Collectors.joining("_to_"));
+    }
+
+    private Optional<TransactionResponseData> findProcessedResponse(TransactionRequestData request,
+                                                                    TransactionActionType action) {
+        List<TransactionEntity> txns = findProcessed(request, action);
+        if (txns.isEmpty()) {
+            return Optional.empty();
+        }
+        logger.info("Transaction {}/{} already processed, returning the original result.", request.getRoutingCode(),
+                request.getExternalId());
+        return Optional.of(TransactionResponseData.build(request.getRoutingCode(), request.getExternalId(),
+                request.getRequestCode(), ActionState.ACCEPTED,
+                null, transactionCode(txns), txns.get(0).getTransactionDate()));
+    }
+
+    /**
+     * A timeout or server error can come after the ledger booked the entry, while the transaction rows written before
+     * are rolled back. Such failures are reported as an unknown outcome so that nothing posts the entry again.
+     */
+    void postJournalEntry(JournalEntry journalEntry) {
+        try {
+            ledgerManager.createJournalEntry(journalEntry);
+        } catch (FeignException ex) {
+            if (mayHaveBeenBooked(ex)) {
+                logger.warn("Journal entry {} may have been booked, not retrying.",
+                        journalEntry.getTransactionIdentifier(), ex);
+                throw new JournalEntryOutcomeUnknownException(journalEntry.getTransactionIdentifier(), ex);
+            }
+            throw ex;
         }
+        ledgerAccountCache.invalidate(journalEntry);
+    }
 
+    private static boolean mayHaveBeenBooked(FeignException ex) {
+        if (ex instanceof RetryableException) {
+            // the request never left when the connection could not be opened
+            return !(ex.getCause() instanceof ConnectException || ex.getCause() instanceof UnknownHostException);
+        }
+        return ex.status() >= 500;
+    }
+
+    private Optional<SubTransactionType> findSubTxnType(TransactionRequestData request) {
+        if (StringUtils.isBlank(request.getSubTxnId())) {
+            return Optional.empty();
+        }
+        SubTransactionType subTransactionType = this.subTxnTypesService.findByIdentifier(request.getSubTxnId())
+                .orElseThrow(() -> ServiceException.notFound("Sub Txn Type {0} not found.", request.getSubTxnId()));
+        return Optional.of(subTransactionType);
     }
 
 
     private AccountWrapper validateAndGetAccount(@NotNull TransactionRequestData request, String accountId, TransactionTypeEnum txnType) {
         //TODO: error handling
         Account account = ledgerManager.findAccount(accountId);
-        validateAccount(request.getAmount(), account);
+        validateAccount(account);
 
         ProductInstanceEntity instance = productInstanceRepository.findByAccountIdentifier(accountId).orElseThrow(
                 () -> ServiceException.notFound("Account {0} not found", accountId)
         );
+        AccountWrapper accountWrapper = buildAccountWrapper(request, account, instance);
+        if (txnType == TransactionTypeEnum.WITHDRAWAL)
+            validateWithdrawable(request, accountWrapper.withdrawableBalance);
+
+        return accountWrapper;
+    }
+
+    /**
+     * Builds the request context from an already loaded ledger account and product instance, and normalizes the
+     * request amount to the currency of the product. Callers check the withdrawable balance themselves.
+     */
+    AccountWrapper buildAccountWrapper(@NotNull TransactionRequestData request, Account account,
+                                       @NotNull ProductInstanceEntity instance) {
+        validateAccount(account);
         ProductDefinition productDefinition = productDefinitionService.findProductDefinition(instance.getProductDefinition().getIdentifier()).get();
+        validateProductDefinition(account, productDefinition);
 
         Currency currency = productDefinition.getCurrency();
         if (!currency.getCode().equals(request.getAmount().getCurrency()))
-            throw new UnsupportedOperationException();
+            throw new UnsupportedOperationException("Currency " + request.getAmount().getCurrency() + " not supported");
 
         request.normalizeAmounts(currency);
 
         Double withdrawableBalance = getWithdrawableBalance(account, productDefinition);
-        if (txnType == TransactionTypeEnum.WITHDRAWAL && withdrawableBalance < request.getAmount().getAmount().doubleValue())
-            throw new UnsupportedOperationException();
-
         return new AccountWrapper(account, instance, productDefinition, withdrawableBalance);
     }
 
+    void validateWithdrawable(@NotNull TransactionRequestData request, Double withdrawableBalance) {
+        if (withdrawableBalance < request.getAmount().getAmount().doubleValue())
+            throw new UnsupportedOperationException("Insufficient withdrawable balance");
+    }
+
     Double getWithdrawableBalance(Account account, ProductDefinition productDefinition) {
         // on-hold amount, if any, is subtracted to payable account
         return MathUtil.subtractToZero(account.getBalance(), productDefinition.getMinimumBalance());
     }
 
 
-    private void validateAccount(MoneyData requestAmount, Account account) {
-        validateAccount(account);
-
-        String accountId = account.getIdentifier();
-
+    private void validateProductDefinition(Account account, ProductDefinition productDefinition) {
         if (account.getHolders() != null) { // customer account
-            ProductInstanceEntity instance = productInstanceRepository.findByAccountIdentifier(accountId).orElseThrow(
-                    () -> ServiceException.notFound("Account {0} not found", accountId)
-            );
-            ProductDefinition productDefinition = productDefinitionService.findProductDefinition(instance.getProductDefinition().getIdentifier()).get();
             if (!Boolean.TRUE.equals(productDefinition.getActive()))
                 throw new UnsupportedOperationException("Product Definition is inactive");
-
-            Currency currency = productDefinition.getCurrency();
-            if (!currency.getCode().equals(requestAmount.getCurrency()))
-                throw new UnsupportedOperationException();
         }
     }
 
+    void validateAccess(String accountId, TransactionTypeEnum txnType) {
+        accountAccessValidator.validate(accountId,
+                txnType == TransactionTypeEnum.WITHDRAWAL ? ACCT_WITHDRAWAL_OPERATION : ACCT_DEPOSIT_OPERATION);
+    }
+
     private void validateAccount(Account account) {
         if (account == null)
             throw new UnsupportedOperationException("Account not found");
@@ -314,18 +475,7 @@ public class TransactionService {
     }
 
     public List<Charge> getCharges(ProductDefinition productDefinition, TransactionTypeEnum transactionType) {
-        List<Action> actions = actionService.fetchActions();
-
-        List<String> actionIds = actions
-                .stream()
-                .filter(action -> action.getTransactionType().equals(transactionType.getCode()))
-                .map(Action::getIdentifier)
-                .collect(Collectors.toList());
-
-        return productDefinition.getCharges()
-                .stream()
-                .filter(charge -> actionIds.contains(charge.getActionIdentifier()))
-                .collect(Collectors.toList());
+        return productDefinitionService.findCharges(productDefinition.getIdentifier(), transactionType);
     }
     // Util
 
@@ -388,16 +538,9 @@ public class TransactionService {
 
     private TransactionEntity createTransaction(TransactionRequestData request, TransactionTypeEnum txnType,
                                                 LocalDateTime transactionDate, String tranType,
-                                                TransactionEntity parent, String accountId,
-                                                ProductInstanceEntity productInstanceEntity) {
+                                                TransactionEntity parent, String accountId) {
         TransactionEntity txn = new TransactionEntity();
-        UUID uuid=UUID.randomUUID();
-
-        while(transactionRepository.findByIdentifier(uuid.toString()).isPresent()){
-            uuid=UUID.randomUUID();
-        }
-
-        txn.setIdentifier(uuid.toString());
+        txn.setIdentifier(TimeOrderedUuid.next().toString());
         txn.setRoutingCode(request.getRoutingCode());
         txn.setExternalId(request.getExternalId());
         txn.setTransactionType(txnType);
@@ -411,29 +554,12 @@ public class TransactionService {
         txn.setCreatedOn(getNow());
         /*txn.setLastModifiedBy();
         txn.setLastModifiedOn();*/
-        markLastTransaction(accountId, transactionDate);
         txn.setAccountId(accountId);
         txn.setType(tranType);
         txn.setParentTransaction(parent);
-        transactionRepository.save(txn);
-        productInstanceEntity.setLastTransactionDate(transactionDate);
-        this.productInstanceRepository.save(productInstanceEntity);
         return txn;
     }
 
-    private void markLastTransaction(final String productInstanceIdentifier, LocalDateTime transactionDate) {
-        final Optional<ProductInstanceEntity> optionalProductInstance =
-                this.productInstanceRepository.findByAccountIdentifier(productInstanceIdentifier);
-
-        final ProductInstanceEntity productInstanceEntity = optionalProductInstance.orElseThrow(() ->
-                ServiceException.notFound("Product instance {0} not found.", productInstanceIdentifier));
-
-        productInstanceEntity.setLastTransactionDate(transactionDate);
-
-        this.productInstanceRepository.save(productInstanceEntity);
-
-    }
-
     public List<StatementResponse> fetchStatement(String accountId,
                                                   LocalDateTime fromDateTime,
                                                   LocalDateTime toDateTime) {
@@ -463,6 +589,10 @@ public class TransactionService {
 
 
 
+    /**
+     * Per request context of one account, built once by validateAndGetAccount and handed to charges, journal
+     * building and persistence, so none of them has to look the account up again.
+     */
     public static class AccountWrapper {
         @NotNull
         private final Account account;
@@ -480,5 +610,56 @@ public class TransactionService {
             this.productDefinition = productDefinition;
             this.withdrawableBalance = withdrawableBalance;
         }
+
+        Account getAccount() {
+            return account;
+        }
+
+        ProductInstanceEntity getInstance() {
+            return instance;
+        }
+
+        ProductDefinition getProductDefinition() {
+            return productDefinition;
+        }
+
+        Double getWithdrawableBalance() {
+            return withdrawableBalance;
+        }
+    }
+
+    /**
+     * Rows and journal entry of one transaction, built but neither persisted nor posted yet.
+     */
+    static class PreparedTransaction {
+        private final TransactionEntity txn;
+        private final List<TransactionEntity> chargeTxns;
+        private final JournalEntry journalEntry;
+
+        PreparedTransaction(TransactionEntity txn, List<TransactionEntity> chargeTxns, JournalEntry journalEntry) {
+            this.txn = txn;
+            this.chargeTxns = chargeTxns;
+            this.journalEntry = journalEntry;
+        }
+
+        TransactionEntity getTxn() {
+            return txn;
+        }
+
+        List<TransactionEntity> getChargeTxns() {
+            return chargeTxns;
+        }
+
+        JournalEntry getJournalEntry() {
+            return journalEntry;
+        }
+
+        /**
+         * Replaces the generated identifier of the transaction and its journal entry with one handed out earlier.
+         */
+        void assignIdentifier(String identifier) {
+            txn.setIdentifier(identifier);
+            journalEntry.setTransactionIdentifier(identifier);
+        }
     }
 }
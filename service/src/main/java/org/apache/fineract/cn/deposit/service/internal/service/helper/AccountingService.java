@@ -19,9 +19,13 @@
 package org.apache.fineract.cn.deposit.service.internal.service.helper;
 
 import com.google.common.collect.Lists;
+import feign.FeignException;
+import java.util.Collections;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import org.apache.fineract.cn.accounting.api.v1.client.AccountNotFoundException;
 import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
 import org.apache.fineract.cn.accounting.api.v1.client.LedgerNotFoundException;
@@ -34,6 +38,9 @@ import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -41,13 +48,19 @@ public class AccountingService {
 
   private final Logger logger;
   private final LedgerManager ledgerManager;
+  private final LedgerAccountCache ledgerAccountCache;
+
+  @Value("${config.ledgerPageSize}")
+  private Integer ledgerPageSize;
 
   @Autowired
   public AccountingService(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
-                           final LedgerManager ledgerManager) {
+                           final LedgerManager ledgerManager,
+                           final LedgerAccountCache ledgerAccountCache) {
     super();
     this.logger = logger;
     this.ledgerManager = ledgerManager;
+    this.ledgerAccountCache = ledgerAccountCache;
   }
 
   public void createAccount(final String equityLedger,
@@ -90,8 +103,38 @@ public class AccountingService {
     }
   }
 
+  /**
+   * Pages through all accounts of the given ledger, replacing one request per account in batch jobs.
+   * @return the accounts keyed by identifier and, where present, by alternative account number.
+   */
+  public Map<String, Account> fetchAccountsOfLedger(final String ledgerIdentifier) {
+    final HashMap<String, Account> accounts = new HashMap<>();
+    try {
+      int pageIndex = 0;
+      AccountPage accountPage;
+      do {
+        accountPage = this.ledgerManager.fetchAccountsOfLedger(ledgerIdentifier, pageIndex, this.ledgerPageSize,
+            "identifier", Sort.Direction.ASC.name());
+        if (accountPage.getAccounts() != null) {
+          accountPage.getAccounts().forEach(account -> {
+            accounts.put(account.getIdentifier(), account);
+            if (account.getAlternativeAccountNumber() != null) {
+              accounts.put(account.getAlternativeAccountNumber(), account);
+            }
+          });
+        }
+        pageIndex++;
+      } while (accountPage.getTotalPages() != null && pageIndex < accountPage.getTotalPages());
+    } catch (final LedgerNotFoundException lnfex) {
+      throw ServiceException.notFound("Ledger {0} not found.", ledgerIdentifier);
+    }
+    this.logger.debug("Fetched {} accounts of ledger {}.", accounts.size(), ledgerIdentifier);
+    return accounts;
+  }
+
   public void updateAccount(final Account account) {
     this.ledgerManager.modifyAccount(account.getIdentifier(), account);
+    this.ledgerAccountCache.invalidate(Collections.singleton(account.getIdentifier()));
   }
 
   public List<AccountEntry> fetchEntries(final String identifier, final String dateRange, final String direction) {
@@ -102,5 +145,22 @@ public class AccountingService {
 
   public void post(final JournalEntry journalEntry) {
     this.ledgerManager.createJournalEntry(journalEntry);
+    this.ledgerAccountCache.invalidate(journalEntry);
+  }
+
+  /**
+   * Same as {@link #post(JournalEntry)}, but accepts that the ledger already booked an entry with the same
+   * identifier. For entries whose identifier is derived from what they book.
+   */
+  public void postOnce(final JournalEntry journalEntry) {
+    try {
+      this.post(journalEntry);
+    } catch (final FeignException fex) {
+      if (fex.status() != HttpStatus.CONFLICT.value()) {
+        throw fex;
+      }
+      this.logger.info("Journal entry {} already booked.", journalEntry.getTransactionIdentifier());
+      this.ledgerAccountCache.invalidate(journalEntry);
+    }
   }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.PreDestroy;
+import org.apache.fineract.cn.api.context.AutoUserContext;
+import org.apache.fineract.cn.api.util.UserContext;
+import org.apache.fineract.cn.api.util.UserContextHolder;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.lang.AutoTenantContext;
+import org.apache.fineract.cn.lang.ServiceException;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs batch work on a shared, fixed size pool, carrying the caller's tenant and user context into the worker
+ * threads.
+ */
+@Component
+public class ContextAwareExecutor {
+
+  private final Logger logger;
+  private final int parallelism;
+  private final ExecutorService executorService;
+
+  @Autowired
+  public ContextAwareExecutor(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                              @Value("${config.batchParallelism}") final Integer batchParallelism) {
+    super();
+    this.logger = logger;
+    this.parallelism = batchParallelism != null && batchParallelism > 0
+        ? batchParallelism
+        : Runtime.getRuntime().availableProcessors();
+    this.executorService = Executors.newFixedThreadPool(this.parallelism);
+  }
+
+  public int getParallelism() {
+    return this.parallelism;
+  }
+
+  /**
+   * Runs all tasks and waits for every one of them to finish, even if some fail.
+   * @return the results in the order of the given tasks.
+   * @throws RuntimeException the first failure encountered, after all tasks are done.
+   */
+  public <T> List<T> invokeAll(final List<Callable<T>> tasks) {
+    final List<Future<T>> futures = new ArrayList<>(tasks.size());
+    tasks.forEach(task -> futures.add(this.executorService.submit(withContext(task))));
+
+    final List<T> results = new ArrayList<>(futures.size());
+    RuntimeException failure = null;
+    for (final Future<T> future : futures) {
+      try {
+        results.add(future.get());
+      } catch (final InterruptedException iex) {
+        Thread.currentThread().interrupt();
+        throw ServiceException.internalError("Interrupted while waiting for batch tasks.");
+      } catch (final ExecutionException eex) {
+        this.logger.warn("Batch task failed.", eex.getCause());
+        if (failure == null) {
+          failure = eex.getCause() instanceof RuntimeException
+              ? (RuntimeException) eex.getCause()
+              : ServiceException.internalError(eex.getCause().getMessage());
+        }
+      }
+    }
+
+    if (failure != null) {
+      throw failure;
+    }
+    return results;
+  }
+
+  /**
+   * @return a task that runs the given one with the tenant and user context of the calling thread.
+   */
+  public static <T> Callable<T> withContext(final Callable<T> task) {
+    final Optional<String> tenant = TenantContextHolder.identifier();
+    final Optional<UserContext> userContext = UserContextHolder.getUserContext();
+
+    return () -> {
+      try (final AutoTenantContext ignoredTenant = tenant.map(AutoTenantContext::new)
+               .orElseGet(AutoTenantContext::new);
+           final AutoUserContext ignoredUser = userContext
+               .map(context -> new AutoUserContext(context.getUser(), context.getAccessToken()))
+               .orElse(null)) {
+        return task.call();
+      }
+    };
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executorService.shutdown();
+  }
+}
@@ -0,0 +1,34 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a journal entry was sent to the ledger but no answer came back, the ledger may or may not have booked
+ * it. {@link RetryExecutor} never retries such a failure, a retry would book the entry a second time.
+ */
+@ResponseStatus(HttpStatus.GATEWAY_TIMEOUT)
+public class JournalEntryOutcomeUnknownException extends RuntimeException {
+
+  public JournalEntryOutcomeUnknownException(final String transactionIdentifier, final Throwable cause) {
+    super("Outcome of journal entry " + transactionIdentifier + " is unknown.", cause);
+  }
+}
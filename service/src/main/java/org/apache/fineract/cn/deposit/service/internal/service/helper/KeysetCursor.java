@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.apache.fineract.cn.lang.ServiceException;
+
+/**
+ * Page size, sort and position of a keyset paged listing. The continuation token carries the sort column, direction
+ * and the sort value of the last row handed out, so a token can only continue the listing it was issued for.
+ */
+public class KeysetCursor<T> {
+
+  private static final String SEPARATOR = "|";
+  private static final String ASCENDING = "ASC";
+  private static final String DESCENDING = "DESC";
+
+  private final Map<String, Column<T>> columns;
+  private final int pageSize;
+  private final String sortColumn;
+  private final boolean ascending;
+  private final Comparable<?> after;
+
+  private KeysetCursor(final Map<String, Column<T>> columns, final int pageSize, final String sortColumn,
+                       final boolean ascending, final Comparable<?> after) {
+    super();
+    this.columns = columns;
+    this.pageSize = pageSize;
+    this.sortColumn = sortColumn;
+    this.ascending = ascending;
+    this.after = after;
+  }
+
+  /**
+   * @param columns the sort columns allowed, each must be unique so that no row is skipped or repeated between pages.
+   * @param defaultColumn used if no sort column is given.
+   */
+  public static <T> KeysetCursor<T> parse(final Map<String, Column<T>> columns, final String defaultColumn,
+                                          final Integer pageSize, final Integer maxPageSize,
+                                          final String sortColumn, final String sortDirection,
+                                          final String continuationToken) {
+    if (pageSize == null || pageSize < 1 || pageSize > maxPageSize) {
+      throw ServiceException.badRequest("Page size must be between 1 and {0}.", maxPageSize);
+    }
+
+    final String column = sortColumn != null ? sortColumn : defaultColumn;
+    if (!columns.containsKey(column)) {
+      throw ServiceException.badRequest("Sort column {0} not supported, use one of {1}.", column, columns.keySet());
+    }
+
+    final String direction = sortDirection != null ? sortDirection.toUpperCase() : ASCENDING;
+    if (!direction.equals(ASCENDING) && !direction.equals(DESCENDING)) {
+      throw ServiceException.badRequest("Sort direction {0} not supported, use ASC or DESC.", sortDirection);
+    }
+
+    if (continuationToken == null) {
+      return new KeysetCursor<>(columns, pageSize, column, direction.equals(ASCENDING), null);
+    }
+
+    final String[] parts = KeysetCursor.decode(continuationToken).split("\\" + SEPARATOR, 3);
+    if (parts.length != 3 || !parts[0].equals(column) || !parts[1].equals(direction)) {
+      throw ServiceException.badRequest("Continuation token does not match the requested sort.");
+    }
+    final Comparable<?> after;
+    try {
+      after = columns.get(column).parser.apply(parts[2]);
+    } catch (final IllegalArgumentException ex) {
+      throw ServiceException.badRequest("Continuation token is invalid.");
+    }
+    return new KeysetCursor<>(columns, pageSize, column, direction.equals(ASCENDING), after);
+  }
+
+  public String getSortColumn() {
+    return this.sortColumn;
+  }
+
+  public boolean isAscending() {
+    return this.ascending;
+  }
+
+  public Comparable<?> getAfter() {
+    return this.after;
+  }
+
+  /**
+   * One row more than the page size is fetched to find out whether another page follows.
+   */
+  public int getLimit() {
+    return this.pageSize + 1;
+  }
+
+  /**
+   * @param rows fetched with {@link #getLimit()}
+   * @return the rows belonging to this page.
+   */
+  public List<T> page(final List<T> rows) {
+    return rows.size() > this.pageSize ? rows.subList(0, this.pageSize) : rows;
+  }
+
+  /**
+   * @param rows fetched with {@link #getLimit()}
+   * @return the token for the next page, or null if this is the last one.
+   */
+  public String continuationToken(final List<T> rows) {
+    if (rows.size() <= this.pageSize) {
+      return null;
+    }
+    final Object lastValue = this.columns.get(this.sortColumn).accessor.apply(rows.get(this.pageSize - 1));
+    final String direction = this.ascending ? ASCENDING : DESCENDING;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(
+        (this.sortColumn + SEPARATOR + direction + SEPARATOR + lastValue).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String decode(final String continuationToken) {
+    try {
+      return new String(Base64.getUrlDecoder().decode(continuationToken), StandardCharsets.UTF_8);
+    } catch (final IllegalArgumentException ex) {
+      throw ServiceException.badRequest("Continuation token is invalid.");
+    }
+  }
+
+  public static class Column<T> {
+
+    private final Function<String, Comparable<?>> parser;
+    private final Function<T, ?> accessor;
+
+    private Column(final Function<String, Comparable<?>> parser, final Function<T, ?> accessor) {
+      super();
+      this.parser = parser;
+      this.accessor = accessor;
+    }
+
+    public static <T> Column<T> ofLong(final Function<T, Long> accessor) {
+      return new Column<>(Long::valueOf, accessor);
+    }
+
+    public static <T> Column<T> ofString(final Function<T, String> accessor) {
+      return new Column<>(value -> value, accessor);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.apache.fineract.cn.accounting.api.v1.domain.Account;
+import org.apache.fineract.cn.accounting.api.v1.domain.Creditor;
+import org.apache.fineract.cn.accounting.api.v1.domain.Debtor;
+import org.apache.fineract.cn.accounting.api.v1.domain.JournalEntry;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.apache.fineract.cn.lang.TenantContextHolder;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short lived cache of ledger accounts for read paths, one per tenant. Accounts are dropped as soon as this service
+ * posts a journal entry touching them or modifies them; changes made by other services show up once the entry
+ * expires. Must not be used where a decision depends on the current balance.
+ */
+@Component
+@ManagedResource(objectName = "org.apache.fineract.cn.deposit:type=Cache,name=LedgerAccountCache")
+public class LedgerAccountCache {
+
+  private final Logger logger;
+  private final Integer maximumSize;
+  private final Integer expiryInSeconds;
+  private final ConcurrentMap<String, Cache<String, Account>> tenantCaches = new ConcurrentHashMap<>();
+
+  @Autowired
+  public LedgerAccountCache(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                            @Value("${config.ledgerAccountCacheSize}") final Integer maximumSize,
+                            @Value("${config.ledgerAccountCacheExpiryInSeconds}") final Integer expiryInSeconds) {
+    super();
+    this.logger = logger;
+    this.maximumSize = maximumSize;
+    this.expiryInSeconds = expiryInSeconds;
+  }
+
+  public Account get(final String identifier, final Supplier<Account> loader) {
+    final Cache<String, Account> cache = this.tenantCache();
+    final Account cachedAccount = cache.getIfPresent(identifier);
+    if (cachedAccount != null) {
+      return cachedAccount;
+    }
+
+    final Account account = loader.get();
+    if (account != null) {
+      cache.put(identifier, account);
+    }
+    return account;
+  }
+
+  public void invalidate(final Collection<String> identifiers) {
+    final Cache<String, Account> cache = this.tenantCaches.get(TenantContextHolder.checkedGetIdentifier());
+    if (cache != null && !identifiers.isEmpty()) {
+      this.logger.debug("Invalidating {} cached ledger accounts.", identifiers.size());
+      cache.invalidateAll(identifiers);
+    }
+  }
+
+  public void invalidate(final JournalEntry journalEntry) {
+    final Set<String> identifiers = new HashSet<>();
+    if (journalEntry.getDebtors() != null) {
+      journalEntry.getDebtors().stream().map(Debtor::getAccountNumber).forEach(identifiers::add);
+    }
+    if (journalEntry.getCreditors() != null) {
+      journalEntry.getCreditors().stream().map(Creditor::getAccountNumber).forEach(identifiers::add);
+    }
+    this.invalidate(identifiers);
+  }
+
+  @ManagedOperation
+  public void invalidateAll() {
+    this.tenantCaches.values().forEach(Cache::invalidateAll);
+  }
+
+  @ManagedAttribute
+  public long getHitCount() {
+    return this.stats().hitCount();
+  }
+
+  @ManagedAttribute
+  public long getMissCount() {
+    return this.stats().missCount();
+  }
+
+  @ManagedAttribute
+  public double getHitRate() {
+    return this.stats().hitRate();
+  }
+
+  @ManagedAttribute
+  public long getSize() {
+    return this.tenantCaches.values().stream().mapToLong(Cache::size).sum();
+  }
+
+  private Cache<String, Account> tenantCache() {
+    return this.tenantCaches.computeIfAbsent(TenantContextHolder.checkedGetIdentifier(),
+        tenantIdentifier -> CacheBuilder.newBuilder()
+            .maximumSize(this.maximumSize)
+            .expireAfterWrite(this.expiryInSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build());
+  }
+
+  private CacheStats stats() {
+    return this.tenantCaches.values()
+        .stream()
+        .map(Cache::stats)
+        .reduce(new CacheStats(0L, 0L, 0L, 0L, 0L, 0L), CacheStats::plus);
+  }
+}
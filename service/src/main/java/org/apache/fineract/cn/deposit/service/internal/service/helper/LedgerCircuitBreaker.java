@@ -0,0 +1,256 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import feign.FeignException;
+import feign.RetryableException;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Circuit breaker and bulkhead for calls to the ledger. The circuit opens when at least the configured share of
+ * the last calls failed for infrastructure reasons, connection problems, timeouts or 5xx answers, and then fails
+ * calls fast until a single trial call after the open period succeeds. Business errors such as an unknown account
+ * count as successful calls. The bulkhead caps concurrent calls, so a slow ledger holds at most that many request
+ * threads. State and per operation call counts and latencies are exposed through JMX.
+ */
+@Component
+@ManagedResource(objectName = "org.apache.fineract.cn.deposit:type=CircuitBreaker,name=Ledger")
+public class LedgerCircuitBreaker {
+
+  public enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private final Logger logger;
+  private final Clock clock = Clock.systemUTC();
+  private final Semaphore bulkhead;
+  private final long bulkheadWaitInMillis;
+  private final long openInMillis;
+  private final int failureRateThreshold;
+  private final boolean[] outcomes;
+  private final ConcurrentMap<String, OperationStatistics> statistics = new ConcurrentHashMap<>();
+  private final AtomicLong rejectedCalls = new AtomicLong();
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private boolean trialCallRunning;
+  private int recordedCalls;
+  private int failedCalls;
+  private int nextOutcome;
+
+  @Autowired
+  public LedgerCircuitBreaker(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                              @Value("${config.ledgerMaxConcurrentCalls}") final Integer maxConcurrentCalls,
+                              @Value("${config.ledgerBulkheadWaitInMillis}") final Long bulkheadWaitInMillis,
+                              @Value("${config.ledgerBreakerWindowSize}") final Integer windowSize,
+                              @Value("${config.ledgerBreakerFailureRateThreshold}") final Integer failureRateThreshold,
+                              @Value("${config.ledgerBreakerOpenInMillis}") final Long openInMillis) {
+    super();
+    this.logger = logger;
+    this.bulkhead = new Semaphore(Math.max(1, maxConcurrentCalls));
+    this.bulkheadWaitInMillis = bulkheadWaitInMillis;
+    this.outcomes = new boolean[Math.max(1, windowSize)];
+    this.failureRateThreshold = failureRateThreshold;
+    this.openInMillis = openInMillis;
+  }
+
+  public <T> T call(final String operation, final Supplier<T> supplier) {
+    final boolean trialCall = this.permitCall(operation);
+    try {
+      if (!this.bulkhead.tryAcquire(this.bulkheadWaitInMillis, TimeUnit.MILLISECONDS)) {
+        this.rejectedCalls.incrementAndGet();
+        this.releaseTrialCall(trialCall);
+        throw new LedgerUnavailableException("Too many concurrent ledger calls, " + operation + " rejected.");
+      }
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      this.releaseTrialCall(trialCall);
+      throw new LedgerUnavailableException("Interrupted while waiting to call ledger " + operation + ".");
+    }
+
+    final long started = System.nanoTime();
+    boolean failed = false;
+    try {
+      return supplier.get();
+    } catch (final RuntimeException ex) {
+      failed = infrastructureFailure(ex);
+      throw ex;
+    } finally {
+      this.bulkhead.release();
+      this.statistics.computeIfAbsent(operation, key -> new OperationStatistics())
+          .record(System.nanoTime() - started, failed);
+      this.recordOutcome(failed, trialCall);
+    }
+  }
+
+  @ManagedAttribute
+  public synchronized String getState() {
+    return this.state.name();
+  }
+
+  @ManagedAttribute
+  public long getRejectedCalls() {
+    return this.rejectedCalls.get();
+  }
+
+  @ManagedAttribute
+  public int getAvailableConcurrentCalls() {
+    return this.bulkhead.availablePermits();
+  }
+
+  @ManagedAttribute
+  public Map<String, String> getOperationStatistics() {
+    final TreeMap<String, String> result = new TreeMap<>();
+    this.statistics.forEach((operation, operationStatistics) -> result.put(operation, operationStatistics.toString()));
+    return result;
+  }
+
+  @ManagedOperation
+  public synchronized void reset() {
+    this.transitionTo(State.CLOSED);
+  }
+
+  private synchronized boolean permitCall(final String operation) {
+    if (this.state == State.OPEN) {
+      if (this.clock.millis() - this.openedAt < this.openInMillis) {
+        this.rejectedCalls.incrementAndGet();
+        throw new LedgerUnavailableException("Ledger circuit is open, " + operation + " not called.");
+      }
+      this.transitionTo(State.HALF_OPEN);
+    }
+    if (this.state == State.HALF_OPEN) {
+      if (this.trialCallRunning) {
+        this.rejectedCalls.incrementAndGet();
+        throw new LedgerUnavailableException("Ledger circuit is half open, " + operation + " not called.");
+      }
+      this.trialCallRunning = true;
+      return true;
+    }
+    return false;
+  }
+
+  private synchronized void releaseTrialCall(final boolean trialCall) {
+    if (trialCall) {
+      this.trialCallRunning = false;
+    }
+  }
+
+  private synchronized void recordOutcome(final boolean failed, final boolean trialCall) {
+    if (trialCall) {
+      this.trialCallRunning = false;
+      this.transitionTo(failed ? State.OPEN : State.CLOSED);
+      return;
+    }
+    if (this.state != State.CLOSED) {
+      return;
+    }
+
+    if (this.recordedCalls == this.outcomes.length) {
+      if (this.outcomes[this.nextOutcome]) {
+        this.failedCalls--;
+      }
+    } else {
+      this.recordedCalls++;
+    }
+    this.outcomes[this.nextOutcome] = failed;
+    if (failed) {
+      this.failedCalls++;
+    }
+    this.nextOutcome = (this.nextOutcome + 1) % this.outcomes.length;
+
+    if (this.recordedCalls == this.outcomes.length
+        && this.failedCalls * 100 >= this.failureRateThreshold * this.recordedCalls) {
+      this.transitionTo(State.OPEN);
+    }
+  }
+
+  private void transitionTo(final State newState) {
+    if (this.state != newState) {
+      this.logger.warn("Ledger circuit {} -> {}.", this.state, newState);
+    }
+    this.state = newState;
+    if (newState == State.OPEN) {
+      this.openedAt = this.clock.millis();
+    }
+    if (newState == State.CLOSED) {
+      this.recordedCalls = 0;
+      this.failedCalls = 0;
+      this.nextOutcome = 0;
+    }
+  }
+
+  private static boolean infrastructureFailure(final Throwable throwable) {
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+      if (cause instanceof RetryableException || cause instanceof IOException || cause instanceof TimeoutException) {
+        return true;
+      }
+      if (cause instanceof FeignException) {
+        final int status = ((FeignException) cause).status();
+        return status >= 500 || status < 0;
+      }
+    }
+    return false;
+  }
+
+  private static class OperationStatistics {
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private void record(final long nanos, final boolean failed) {
+      this.calls.incrementAndGet();
+      if (failed) {
+        this.failures.incrementAndGet();
+      }
+      this.totalNanos.addAndGet(nanos);
+      this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    @Override
+    public String toString() {
+      final long calls = this.calls.get();
+      return "calls=" + calls
+          + ", failures=" + this.failures.get()
+          + ", meanMillis=" + (calls > 0L ? TimeUnit.NANOSECONDS.toMillis(this.totalNanos.get() / calls) : 0L)
+          + ", maxMillis=" + TimeUnit.NANOSECONDS.toMillis(this.maxNanos.get());
+    }
+  }
+}
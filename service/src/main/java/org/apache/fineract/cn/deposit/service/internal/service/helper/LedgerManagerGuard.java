@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import org.apache.fineract.cn.accounting.api.v1.client.LedgerManager;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Routes every call of the ledger client through the {@link LedgerCircuitBreaker}, so that the accounting service
+ * helper, transaction processing and sub transaction type checks are all covered without wrapping each call site.
+ * The breaker is looked up on first use, post processors are created before regular beans.
+ */
+@Component
+public class LedgerManagerGuard implements BeanPostProcessor, BeanFactoryAware {
+
+  private BeanFactory beanFactory;
+  private volatile LedgerCircuitBreaker ledgerCircuitBreaker;
+
+  public LedgerManagerGuard() {
+    super();
+  }
+
+  @Override
+  public void setBeanFactory(final BeanFactory beanFactory) throws BeansException {
+    this.beanFactory = beanFactory;
+  }
+
+  @Override
+  public Object postProcessBeforeInitialization(final Object bean, final String beanName) throws BeansException {
+    return bean;
+  }
+
+  @Override
+  public Object postProcessAfterInitialization(final Object bean, final String beanName) throws BeansException {
+    if (!(bean instanceof LedgerManager)) {
+      return bean;
+    }
+
+    return Proxy.newProxyInstance(LedgerManager.class.getClassLoader(), new Class<?>[]{LedgerManager.class},
+        (proxy, method, args) -> {
+          if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(bean, args);
+          }
+          return this.circuitBreaker().call(method.getName(), () -> {
+            try {
+              return method.invoke(bean, args);
+            } catch (final InvocationTargetException ex) {
+              if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+              }
+              if (ex.getCause() instanceof Error) {
+                throw (Error) ex.getCause();
+              }
+              throw new IllegalStateException(ex.getCause());
+            } catch (final IllegalAccessException ex) {
+              throw new IllegalStateException(ex);
+            }
+          });
+        });
+  }
+
+  private LedgerCircuitBreaker circuitBreaker() {
+    if (this.ledgerCircuitBreaker == null) {
+      this.ledgerCircuitBreaker = this.beanFactory.getBean(LedgerCircuitBreaker.class);
+    }
+    return this.ledgerCircuitBreaker;
+  }
+}
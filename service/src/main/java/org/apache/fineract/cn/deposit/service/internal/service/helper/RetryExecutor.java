@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import feign.FeignException;
+import feign.RetryableException;
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import javax.persistence.OptimisticLockException;
+import org.apache.fineract.cn.deposit.service.ServiceConstants;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retries work that failed for a transient reason: optimistic locking and other concurrency failures, serialization
+ * failures and deadlocks reported by the database, and ledger calls that could not connect or got a gateway error.
+ * Any other failure is thrown right away, and so is a journal entry post whose outcome is unknown, whatever caused it.
+ *
+ * Attempts are spaced with exponential backoff and full jitter. Retries are drawn from a budget that every call
+ * refills by a fraction of a retry, so that under sustained failure only that fraction of calls is retried instead
+ * of every call being multiplied. Counts are exposed through JMX.
+ */
+@Component
+@ManagedResource(objectName = "org.apache.fineract.cn.deposit:type=Retry,name=RetryExecutor")
+public class RetryExecutor {
+
+  private static final long TOKEN_SCALE = 1000L;
+
+  private final Logger logger;
+  private final int maxAttempts;
+  private final long baseDelayInMillis;
+  private final long maxDelayInMillis;
+  private final long tokensPerCall;
+  private final long maxTokens;
+  private final AtomicLong tokens;
+
+  private final AtomicLong calls = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong exhausted = new AtomicLong();
+  private final AtomicLong budgetRejections = new AtomicLong();
+
+  @Autowired
+  public RetryExecutor(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
+                       @Value("${config.txnMaxRetry}") final Integer maxAttempts,
+                       @Value("${config.retryBaseDelayInMillis}") final Long baseDelayInMillis,
+                       @Value("${config.retryMaxDelayInMillis}") final Long maxDelayInMillis,
+                       @Value("${config.retryBudgetRatio}") final Double retryBudgetRatio,
+                       @Value("${config.retryBudgetMaxRetries}") final Integer retryBudgetMaxRetries) {
+    super();
+    this.logger = logger;
+    this.maxAttempts = Math.max(1, maxAttempts);
+    this.baseDelayInMillis = baseDelayInMillis;
+    this.maxDelayInMillis = maxDelayInMillis;
+    this.tokensPerCall = (long) (retryBudgetRatio * TOKEN_SCALE);
+    this.maxTokens = retryBudgetMaxRetries * TOKEN_SCALE;
+    this.tokens = new AtomicLong(this.maxTokens);
+  }
+
+  public <T> T execute(final Callable<T> callable) throws Exception {
+    return this.execute(callable, throwable -> false);
+  }
+
+  /**
+   * @param alsoRetryable failures the caller knows to be safe to retry on top of the transient ones, for example a
+   *                      unique key violation of an idempotent request that lost a race.
+   */
+  public <T> T execute(final Callable<T> callable, final Predicate<Throwable> alsoRetryable) throws Exception {
+    this.calls.incrementAndGet();
+    this.tokens.accumulateAndGet(this.tokensPerCall, (current, added) -> Math.min(this.maxTokens, current + added));
+
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return callable.call();
+      } catch (final Exception ex) {
+        if (!this.retryable(ex, alsoRetryable)) {
+          throw ex;
+        }
+        if (attempt >= this.maxAttempts) {
+          this.exhausted.incrementAndGet();
+          throw ex;
+        }
+        if (!this.withdrawToken()) {
+          this.budgetRejections.incrementAndGet();
+          this.logger.warn("Retry budget exhausted, giving up after attempt {}: {}", attempt, ex.getMessage());
+          throw ex;
+        }
+        this.retries.incrementAndGet();
+        this.logger.debug("Attempt {} of {} failed, retrying: {}", attempt, this.maxAttempts, ex.getMessage());
+        try {
+          Thread.sleep(this.delay(attempt));
+        } catch (final InterruptedException interrupted) {
+          Thread.currentThread().interrupt();
+          throw ex;
+        }
+      }
+    }
+  }
+
+  @ManagedAttribute
+  public long getCalls() {
+    return this.calls.get();
+  }
+
+  @ManagedAttribute
+  public long getRetries() {
+    return this.retries.get();
+  }
+
+  @ManagedAttribute
+  public long getExhausted() {
+    return this.exhausted.get();
+  }
+
+  @ManagedAttribute
+  public long getBudgetRejections() {
+    return this.budgetRejections.get();
+  }
+
+  @ManagedAttribute
+  public double getAvailableRetries() {
+    return (double) this.tokens.get() / TOKEN_SCALE;
+  }
+
+  private boolean withdrawToken() {
+    long current;
+    do {
+      current = this.tokens.get();
+      if (current < TOKEN_SCALE) {
+        return false;
+      }
+    } while (!this.tokens.compareAndSet(current, current - TOKEN_SCALE));
+    return true;
+  }
+
+  private long delay(final int attempt) {
+    final long ceiling = Math.min(this.maxDelayInMillis, this.baseDelayInMillis << Math.min(attempt - 1, 20));
+    return ThreadLocalRandom.current().nextLong(ceiling + 1L);
+  }
+
+  private boolean retryable(final Throwable throwable, final Predicate<Throwable> alsoRetryable) {
+    boolean retryable = false;
+    for (Throwable cause = throwable; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+      if (cause instanceof JournalEntryOutcomeUnknownException) {
+        return false;
+      }
+      retryable = retryable || alsoRetryable.test(cause) || this.transientFailure(cause);
+    }
+    return retryable;
+  }
+
+  private boolean transientFailure(final Throwable throwable) {
+    if (throwable instanceof TransientDataAccessException
+        || throwable instanceof OptimisticLockException
+        || throwable instanceof RetryableException) {
+      return true;
+    }
+    if (throwable instanceof SQLException) {
+      final String sqlState = ((SQLException) throwable).getSQLState();
+      // 40001 serialization failure, 40P01 deadlock detected
+      return sqlState != null && sqlState.startsWith("40");
+    }
+    if (throwable instanceof FeignException) {
+      final int status = ((FeignException) throwable).status();
+      return status == 502 || status == 503 || status == 504;
+    }
+    return false;
+  }
+}
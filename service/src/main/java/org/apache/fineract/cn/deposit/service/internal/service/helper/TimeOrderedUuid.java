@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.fineract.cn.deposit.service.internal.service.helper;
+
+import java.security.SecureRandom;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Version 7 style UUIDs: 48 bits of epoch milliseconds followed by 74 random bits. Identifiers created close in
+ * time are close in the unique index, and a collision needs two identical 74 bit draws within the same millisecond,
+ * so no uniqueness check against the database is needed.
+ */
+public class TimeOrderedUuid {
+
+  private static final Random RANDOM = new SecureRandom();
+
+  private TimeOrderedUuid() {
+    super();
+  }
+
+  public static UUID next() {
+    final long timestamp = System.currentTimeMillis();
+    final long randomA = RANDOM.nextInt(1 << 12);
+    final long randomB = RANDOM.nextLong();
+
+    final long mostSignificantBits = (timestamp << 16) | (0x7L << 12) | randomA;
+    final long leastSignificantBits = (randomB & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+    return new UUID(mostSignificantBits, leastSignificantBits);
+  }
+}
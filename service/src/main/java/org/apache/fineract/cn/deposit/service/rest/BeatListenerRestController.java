@@ -19,11 +19,10 @@
 package org.apache.fineract.cn.deposit.service.rest;
 
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
-import org.apache.fineract.cn.deposit.service.internal.command.BeatListenerCommand;
+import org.apache.fineract.cn.deposit.service.internal.service.BeatJobService;
 import javax.validation.Valid;
 import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
 import org.apache.fineract.cn.anubis.annotation.Permittable;
-import org.apache.fineract.cn.command.gateway.CommandGateway;
 import org.apache.fineract.cn.rhythm.spi.v1.client.BeatListener;
 import org.apache.fineract.cn.rhythm.spi.v1.domain.BeatPublish;
 import org.slf4j.Logger;
@@ -44,14 +43,14 @@ public class BeatListenerRestController {
   private final static String BEAT_PUBLISH_PERMISSION = "deposit__v1__khepri";
 
   private final Logger logger;
-  private final CommandGateway commandGateway;
+  private final BeatJobService beatJobService;
 
   @Autowired
   public BeatListenerRestController(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
-                                    final CommandGateway commandGateway) {
+                                    final BeatJobService beatJobService) {
     super();
     this.logger = logger;
-    this.commandGateway = commandGateway;
+    this.beatJobService = beatJobService;
   }
 
   @Permittable(value = AcceptedTokenType.TENANT, groupId = BEAT_PUBLISH_PERMISSION)
@@ -63,7 +62,7 @@ public class BeatListenerRestController {
   public @ResponseBody
   ResponseEntity<Void> publishBeat(@RequestBody @Valid final BeatPublish beatPublish)
   {
-    this.commandGateway.process(new BeatListenerCommand(beatPublish));
+    this.beatJobService.submit(beatPublish);
     return ResponseEntity.accepted().build();
 
   }
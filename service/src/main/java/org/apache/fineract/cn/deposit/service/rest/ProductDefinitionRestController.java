@@ -22,8 +22,10 @@ import org.apache.fineract.cn.deposit.api.v1.PermittableGroupIds;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.DividendDistribution;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinition;
 import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionCommand;
+import org.apache.fineract.cn.deposit.api.v1.definition.domain.ProductDefinitionPage;
 import org.apache.fineract.cn.deposit.api.v1.domain.Type;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstancePage;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.command.ActivateProductDefinitionCommand;
 import org.apache.fineract.cn.deposit.service.internal.command.CreateProductDefinitionCommand;
@@ -50,6 +52,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -108,6 +111,24 @@ public class ProductDefinitionRestController {
     return ResponseEntity.ok(this.productDefinitionService.fetchProductDefinitions());
   }
 
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.DEFINITION_MANAGEMENT)
+  @RequestMapping(
+      value = "",
+      method = RequestMethod.GET,
+      params = "pageSize",
+      consumes = MediaType.ALL_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  @ResponseBody
+  ResponseEntity<ProductDefinitionPage> fetchProductDefinitionPage(
+      @RequestParam(value = "pageSize") final Integer pageSize,
+      @RequestParam(value = "sortColumn", required = false) final String sortColumn,
+      @RequestParam(value = "sortDirection", required = false) final String sortDirection,
+      @RequestParam(value = "continuationToken", required = false) final String continuationToken) {
+    return ResponseEntity.ok(
+        this.productDefinitionService.fetchProductDefinitionPage(pageSize, sortColumn, sortDirection, continuationToken));
+  }
+
   @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.DEFINITION_MANAGEMENT)
   @RequestMapping(
       value = "/{identifier}",
@@ -132,7 +153,6 @@ public class ProductDefinitionRestController {
   @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.INSTANCE_MANAGEMENT)
   public ResponseEntity<List<ProductInstance>> findProductInstances(@PathVariable("identifier") final String identifier) {
 
-    final Optional<ProductDefinition> optionalProductDefinition = this.productDefinitionService.findProductDefinition(identifier);
     if (!this.productDefinitionService.findProductDefinition(identifier).isPresent()) {
       throw ServiceException.notFound("Product definition {0} not found.", identifier);
     } else {
@@ -140,6 +160,29 @@ public class ProductDefinitionRestController {
     }
   }
 
+  @RequestMapping(
+      value = "/{identifier}/instances",
+      method = RequestMethod.GET,
+      params = "pageSize",
+      consumes = MediaType.ALL_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.INSTANCE_MANAGEMENT)
+  public ResponseEntity<ProductInstancePage> findProductInstancePage(
+      @PathVariable("identifier") final String identifier,
+      @RequestParam(value = "pageSize") final Integer pageSize,
+      @RequestParam(value = "sortColumn", required = false) final String sortColumn,
+      @RequestParam(value = "sortDirection", required = false) final String sortDirection,
+      @RequestParam(value = "continuationToken", required = false) final String continuationToken) {
+
+    if (!this.productDefinitionService.findProductDefinition(identifier).isPresent()) {
+      throw ServiceException.notFound("Product definition {0} not found.", identifier);
+    } else {
+      return ResponseEntity.ok(this.productInstanceService.findPageByProductDefinition(identifier, pageSize,
+          sortColumn, sortDirection, continuationToken));
+    }
+  }
+
   @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.DEFINITION_MANAGEMENT)
   @RequestMapping(
       value = "/{identifier}/commands",
@@ -230,7 +273,7 @@ public class ProductDefinitionRestController {
       throw ServiceException.notFound("Product Definition {0} not found", identifier);
     }
 
-    if (!this.productInstanceService.findByProductDefinition(identifier).isEmpty()) {
+    if (this.productInstanceService.hasInstances(identifier)) {
       throw ServiceException.conflict("Product Definition {0} has assigned instances.", identifier);
     }
 
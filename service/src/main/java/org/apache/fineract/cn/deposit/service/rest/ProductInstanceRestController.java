@@ -25,6 +25,7 @@ import org.apache.fineract.cn.deposit.api.v1.EventConstants;
 import org.apache.fineract.cn.deposit.api.v1.PermittableGroupIds;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.AvailableTransactionType;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstance;
+import org.apache.fineract.cn.deposit.api.v1.instance.domain.ProductInstancePage;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.BalanceResponse;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.StatementResponse;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
@@ -46,7 +47,6 @@ import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -69,10 +69,6 @@ public class ProductInstanceRestController {
   private final ProductInstanceService productInstanceService;
   private final TransactionService transactionService;
 
-
-  @Value("${config.txnMaxRetry}")
-  private Integer txnMaxRetry;
-
   @Autowired
   public ProductInstanceRestController(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
                                        final CommandGateway commandGateway,
@@ -93,28 +89,10 @@ public class ProductInstanceRestController {
       produces = MediaType.APPLICATION_JSON_VALUE
   )
   @ResponseBody
-  public ResponseEntity<Void> create(@RequestBody @Valid final ProductInstance productInstance)  throws Throwable{
-    int retryCount = 0;
-    Exception e = null;
-    do {
-      retryCount++;
-      logger.info("Try transaction :  " + retryCount + " of " + txnMaxRetry);
-      System.out.println("*******Try transaction :  " + retryCount + " of " + txnMaxRetry);
-      try {
-        this.commandGateway.process(new CreateProductInstanceCommand(productInstance));
-        return ResponseEntity.accepted().build();
-      } catch (Exception ex) {
-        logger.info(ex.getClass().getCanonicalName());
-        System.out.println(ex.getClass().getCanonicalName());
-        logger.info(ex.getClass().getName());
-        System.out.println(ex.getClass().getName());
-        logger.info(ex.getMessage());
-        System.out.println(ex.getMessage());
-        e=ex;
-      }
-    } while (retryCount < txnMaxRetry);
-    //throw the last exception
-    throw e;
+  public ResponseEntity<Void> create(@RequestBody @Valid final ProductInstance productInstance) {
+    // the command runs asynchronously, its failures surface in the handler and not here
+    this.commandGateway.process(new CreateProductInstanceCommand(productInstance));
+    return ResponseEntity.accepted().build();
   }
 
   @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.INSTANCE_MANAGEMENT)
@@ -130,6 +108,25 @@ public class ProductInstanceRestController {
     return ResponseEntity.ok(this.productInstanceService.findByCustomer(customerIdentifier));
   }
 
+  @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.INSTANCE_MANAGEMENT)
+  @RequestMapping(
+      value = "",
+      method = RequestMethod.GET,
+      params = "pageSize",
+      consumes = MediaType.ALL_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE
+  )
+  @ResponseBody
+  public ResponseEntity<ProductInstancePage> fetchProductInstancePage(
+      @RequestParam(value = "customer", required = true) final String customerIdentifier,
+      @RequestParam(value = "pageSize") final Integer pageSize,
+      @RequestParam(value = "sortColumn", required = false) final String sortColumn,
+      @RequestParam(value = "sortDirection", required = false) final String sortDirection,
+      @RequestParam(value = "continuationToken", required = false) final String continuationToken) {
+    return ResponseEntity.ok(this.productInstanceService.findPageByCustomer(customerIdentifier, pageSize, sortColumn,
+        sortDirection, continuationToken));
+  }
+
   @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.INSTANCE_MANAGEMENT)
   @RequestMapping(
       value = "/transactiontypes",
@@ -178,7 +175,7 @@ public class ProductInstanceRestController {
   @ResponseBody
   ResponseEntity<Void> postProductInstanceCommand(@PathVariable("identifier") final String identifier,
                                                   @RequestParam(value = "command", required = true) final String command) {
-    if (!this.productInstanceService.findByAccountIdentifier(identifier).isPresent()) {
+    if (!this.productInstanceService.existsByAccountIdentifier(identifier)) {
       throw ServiceException.notFound("Product instance {0} not found.", identifier);
     }
 
@@ -213,7 +210,7 @@ public class ProductInstanceRestController {
       throw ServiceException.badRequest("Given product instance must match path {0}", identifier);
     }
 
-    if (!this.productInstanceService.findByAccountIdentifier(identifier).isPresent()) {
+    if (!this.productInstanceService.existsByAccountIdentifier(identifier)) {
       throw ServiceException.notFound("Product instance {0} not found.", identifier);
     }
 
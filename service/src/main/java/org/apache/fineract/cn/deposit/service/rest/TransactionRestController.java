@@ -18,25 +18,32 @@
  */
 package org.apache.fineract.cn.deposit.service.rest;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.fineract.cn.anubis.annotation.AcceptedTokenType;
 import org.apache.fineract.cn.anubis.annotation.Permittable;
 import org.apache.fineract.cn.command.domain.CommandCallback;
 import org.apache.fineract.cn.command.gateway.CommandGateway;
 import org.apache.fineract.cn.deposit.api.v1.PermittableGroupIds;
 import org.apache.fineract.cn.deposit.api.v1.instance.domain.SubTransactionType;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.BatchTransactionResult;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionActionType;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestData;
+import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionRequestStatus;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionResponseData;
 import org.apache.fineract.cn.deposit.api.v1.transaction.domain.data.TransactionTypeEnum;
 import org.apache.fineract.cn.deposit.service.ServiceConstants;
 import org.apache.fineract.cn.deposit.service.internal.command.CreateSubTxnTypeCommand;
 import org.apache.fineract.cn.deposit.service.internal.command.TransactionCommand;
+import org.apache.fineract.cn.deposit.service.internal.service.AsyncTransactionService;
+import org.apache.fineract.cn.deposit.service.internal.service.BatchTransactionService;
 import org.apache.fineract.cn.deposit.service.internal.service.SubTxnTypesService;
+import org.apache.fineract.cn.deposit.service.internal.service.helper.RetryExecutor;
 import org.apache.fineract.cn.lang.ServiceException;
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -50,18 +57,24 @@ public class TransactionRestController {
     private final Logger logger;
     private final CommandGateway commandGateway;
     private final SubTxnTypesService service;
-
-    @Value("${config.txnMaxRetry}")
-    private Integer txnMaxRetry;
+    private final BatchTransactionService batchTransactionService;
+    private final AsyncTransactionService asyncTransactionService;
+    private final RetryExecutor retryExecutor;
 
 
     @Autowired
     public TransactionRestController(@Qualifier(ServiceConstants.LOGGER_NAME) final Logger logger,
                                      CommandGateway commandGateway,
-                                     SubTxnTypesService service) {
+                                     SubTxnTypesService service,
+                                     BatchTransactionService batchTransactionService,
+                                     AsyncTransactionService asyncTransactionService,
+                                     RetryExecutor retryExecutor) {
         this.logger = logger;
         this.commandGateway = commandGateway;
         this.service = service;
+        this.batchTransactionService = batchTransactionService;
+        this.asyncTransactionService = asyncTransactionService;
+        this.retryExecutor = retryExecutor;
     }
 
     @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.TXN_MANAGEMENT)
@@ -75,29 +88,74 @@ public class TransactionRestController {
     @ResponseBody
     ResponseEntity<TransactionResponseData> performTxn(@RequestParam("action") String action, @RequestBody TransactionRequestData requestData)
             throws Throwable {
-        int retryCount = 0;
-        Exception e = null;
-        do {
-            retryCount++;
-            logger.info("Try transaction :  " + retryCount + " of " + txnMaxRetry);
-            System.out.println("*******Try transaction :  " + retryCount + " of " + txnMaxRetry);
-            try {
-                CommandCallback<TransactionResponseData> result = commandGateway.process(new TransactionCommand(requestData, TransactionActionType.valueOf(action)),
-                        TransactionResponseData.class);
+        TransactionActionType actionType = toActionType(action);
+        // only a request with external id that lost the insert race finds the winner's result on retry
+        boolean replayable = StringUtils.isNotBlank(requestData.getExternalId());
+        return ResponseEntity.ok(retryExecutor.execute(() -> {
+            CommandCallback<TransactionResponseData> result = commandGateway.process(
+                    new TransactionCommand(requestData, actionType), TransactionResponseData.class);
+            return result.get();
+        }, ex -> replayable && ex instanceof DataIntegrityViolationException));
+    }
+
+    @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.TXN_MANAGEMENT)
+    @RequestMapping(
+            value = "/batch",
+            method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public
+    @ResponseBody
+    ResponseEntity<List<BatchTransactionResult>> performBatchTxn(@RequestParam("action") String action,
+                                                                 @RequestBody List<TransactionRequestData> requestData) {
+        return ResponseEntity.ok(batchTransactionService.process(requestData, toActionType(action)));
+    }
+
+    @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.TXN_MANAGEMENT)
+    @RequestMapping(
+            value = "/async",
+            method = RequestMethod.POST,
+            consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public
+    @ResponseBody
+    ResponseEntity<TransactionRequestStatus> submitTxn(@RequestParam("action") String action,
+                                                       @RequestBody TransactionRequestData requestData) {
+        TransactionRequestStatus status = asyncTransactionService.submit(requestData, toActionType(action));
+        if (TransactionRequestStatus.State.FAILED.name().equals(status.getState())) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(status);
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(status);
+    }
+
+    @Permittable(value = AcceptedTokenType.TENANT, groupId = PermittableGroupIds.TXN_MANAGEMENT)
+    @RequestMapping(
+            value = "/requests",
+            method = RequestMethod.GET,
+            consumes = MediaType.ALL_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE
+    )
+    public
+    @ResponseBody
+    ResponseEntity<TransactionRequestStatus> findTxnRequest(
+            @RequestParam(value = "requestCode", required = false) String requestCode,
+            @RequestParam(value = "routingCode", required = false) String routingCode,
+            @RequestParam(value = "externalId", required = false) String externalId) {
+        if (requestCode == null && externalId == null) {
+            throw ServiceException.badRequest("Either requestCode or externalId is required.");
+        }
+        return ResponseEntity.ok(asyncTransactionService.findTransactionRequest(requestCode, routingCode, externalId)
+                .orElseThrow(() -> ServiceException.notFound("Transaction request not found.")));
+    }
 
-                return ResponseEntity.ok(result.get());
-            } catch (Exception ex) {
-                logger.info(ex.getClass().getCanonicalName());
-                System.out.println(ex.getClass().getCanonicalName());
-                logger.info(ex.getClass().getName());
-                System.out.println(ex.getClass().getName());
-                logger.info(ex.getMessage());
-                System.out.println(ex.getMessage());
-                e=ex;
-            }
-        } while (retryCount < txnMaxRetry);
-        //throw the last exception
-        throw e;
+    private TransactionActionType toActionType(String action) {
+        try {
+            return TransactionActionType.valueOf(action);
+        } catch (IllegalArgumentException ex) {
+            throw ServiceException.badRequest("Action {0} not supported.", action);
+        }
     }
 
 }
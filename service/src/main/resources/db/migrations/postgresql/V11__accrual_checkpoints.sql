@@ -0,0 +1,32 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+CREATE TABLE shed_accrual_checkpoints (
+  id                    BIGSERIAL      NOT NULL,
+  product_definition_id BIGINT         NOT NULL,
+  due_date              DATE           NOT NULL,
+  last_instance_id      BIGINT         NOT NULL,
+  processed_instances   BIGINT         NOT NULL,
+  accrued_amount        NUMERIC(15,5)  NOT NULL,
+  completed             BOOLEAN        NOT NULL,
+  created_on            TIMESTAMP(3)   NOT NULL,
+  last_modified_on      TIMESTAMP(3)   NULL,
+  CONSTRAINT shed_accrual_checkpoints_pk PRIMARY KEY (id),
+  CONSTRAINT shed_accrual_checkpoints_uq UNIQUE (product_definition_id, due_date),
+  CONSTRAINT shed_accrual_checkpoints_prod_def_fk FOREIGN KEY (product_definition_id) REFERENCES shed_product_definitions (id)
+);
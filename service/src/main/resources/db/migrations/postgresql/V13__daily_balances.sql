@@ -0,0 +1,29 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+CREATE TABLE shed_daily_balances (
+  id                    BIGSERIAL      NOT NULL,
+  account_identifier    VARCHAR(34)    NOT NULL,
+  balance_date          DATE           NOT NULL,
+  transaction_movement  NUMERIC(15,5)  NOT NULL,
+  ledger_movement       NUMERIC(15,5)  NOT NULL,
+  CONSTRAINT shed_daily_balances_pk PRIMARY KEY (id),
+  CONSTRAINT shed_daily_balances_uq UNIQUE (account_identifier, balance_date)
+);
+
+CREATE INDEX shed_transactions_txn_date_idx ON shed_transactions (transaction_date);
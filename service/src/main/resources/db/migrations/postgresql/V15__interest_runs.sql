@@ -0,0 +1,40 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+CREATE TABLE shed_interest_runs (
+  id                    BIGSERIAL      NOT NULL,
+  product_definition_id BIGINT         NOT NULL,
+  due_date              DATE           NOT NULL,
+  run_type              VARCHAR(32)    NOT NULL,
+  state                 VARCHAR(32)    NOT NULL,
+  created_on            TIMESTAMP(3)   NOT NULL,
+  completed_on          TIMESTAMP(3)   NULL,
+  CONSTRAINT shed_interest_runs_pk PRIMARY KEY (id),
+  CONSTRAINT shed_interest_runs_uq UNIQUE (product_definition_id, due_date, run_type),
+  CONSTRAINT shed_interest_runs_prod_def_fk FOREIGN KEY (product_definition_id) REFERENCES shed_product_definitions (id)
+);
+
+CREATE TABLE shed_interest_run_journals (
+  id                     BIGSERIAL      NOT NULL,
+  interest_run_id        BIGINT         NOT NULL,
+  transaction_identifier VARCHAR(32)    NOT NULL,
+  created_on             TIMESTAMP(3)   NOT NULL,
+  CONSTRAINT shed_interest_run_journals_pk PRIMARY KEY (id),
+  CONSTRAINT shed_interest_run_journals_uq UNIQUE (transaction_identifier),
+  CONSTRAINT shed_interest_run_journals_run_fk FOREIGN KEY (interest_run_id) REFERENCES shed_interest_runs (id)
+);
@@ -0,0 +1,33 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+CREATE TABLE shed_beat_jobs (
+  id                    BIGSERIAL      NOT NULL,
+  identifier            VARCHAR(32)    NOT NULL,
+  due_date              DATE           NOT NULL,
+  state                 VARCHAR(32)    NOT NULL,
+  stage                 VARCHAR(32)    NULL,
+  total_items           BIGINT         NOT NULL,
+  error_message         VARCHAR(1024)  NULL,
+  created_on            TIMESTAMP(3)   NOT NULL,
+  stage_started_on      TIMESTAMP(3)   NULL,
+  completed_on          TIMESTAMP(3)   NULL,
+  lease_until           TIMESTAMP(3)   NULL,
+  CONSTRAINT shed_beat_jobs_pk PRIMARY KEY (id),
+  CONSTRAINT shed_beat_jobs_uq UNIQUE (identifier)
+);
@@ -0,0 +1,38 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+CREATE TABLE shed_transaction_requests (
+  id                    BIGSERIAL      NOT NULL,
+  identifier            VARCHAR(40)    NOT NULL,
+  action                VARCHAR(32)    NOT NULL,
+  account_identifier    VARCHAR(32)    NULL,
+  routing_code          VARCHAR(256)   NULL,
+  external_id           VARCHAR(256)   NULL,
+  request_code          VARCHAR(40)    NULL,
+  state                 VARCHAR(32)    NOT NULL,
+  transaction_code      VARCHAR(100)   NULL,
+  error_message         VARCHAR(1024)  NULL,
+  created_by            VARCHAR(32)    NOT NULL,
+  created_on            TIMESTAMP(3)   NOT NULL,
+  completed_on          TIMESTAMP(3)   NULL,
+  CONSTRAINT shed_transaction_requests_pk PRIMARY KEY (id),
+  CONSTRAINT shed_transaction_requests_uq UNIQUE (identifier)
+);
+
+CREATE INDEX shed_transaction_requests_request_code_idx ON shed_transaction_requests (request_code);
+CREATE INDEX shed_transaction_requests_external_id_idx ON shed_transaction_requests (external_id, routing_code);
@@ -0,0 +1,36 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+-- serves the lookup by routing code and external id over all rows, including those written before this migration
+CREATE INDEX shed_transactions_idempotency_idx ON shed_transactions (COALESCE(routing_code, ''), external_id)
+  WHERE parent_txn_id IS NULL AND external_id IS NOT NULL;
+
+-- blind retries may already have written duplicates, those rows are booked in the ledger and stay, flagged as
+-- duplicates of the first row with the same key, so that they are left out of the unique index below
+ALTER TABLE shed_transactions ADD COLUMN legacy_duplicate BOOLEAN NOT NULL DEFAULT FALSE;
+
+UPDATE shed_transactions t SET legacy_duplicate = TRUE
+  WHERE t.parent_txn_id IS NULL AND t.external_id IS NOT NULL
+  AND EXISTS (SELECT 1 FROM shed_transactions o
+    WHERE o.parent_txn_id IS NULL AND o.external_id = t.external_id
+    AND COALESCE(o.routing_code, '') = COALESCE(t.routing_code, '')
+    AND o.a_type = t.a_type AND o.id < t.id);
+
+-- a transfer writes a DEBIT and a CREDIT row under the same external id, hence a_type
+CREATE UNIQUE INDEX shed_transactions_idempotency_uq ON shed_transactions (COALESCE(routing_code, ''), external_id, a_type)
+  WHERE parent_txn_id IS NULL AND external_id IS NOT NULL AND NOT legacy_duplicate;
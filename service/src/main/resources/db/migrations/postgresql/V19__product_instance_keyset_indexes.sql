@@ -0,0 +1,23 @@
+--
+-- Licensed to the Apache Software Foundation (ASF) under one
+-- or more contributor license agreements.  See the NOTICE file
+-- distributed with this work for additional information
+-- regarding copyright ownership.  The ASF licenses this file
+-- to you under the Apache License, Version 2.0 (the
+-- "License"); you may not use this file except in compliance
+-- with the License.  You may obtain a copy of the License at
+--
+--   http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing,
+-- software distributed under the License is distributed on an
+-- "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+-- KIND, either express or implied.  See the License for the
+-- specific language governing permissions and limitations
+-- under the License.
+
+-- keyset pages filter by customer or product definition and seek on the sort column
+CREATE INDEX shed_prod_inst_customer_id_idx ON shed_product_instances (customer_identifier, id);
+CREATE INDEX shed_prod_inst_customer_account_idx ON shed_product_instances (customer_identifier, account_identifier);
+CREATE INDEX shed_prod_inst_definition_id_idx ON shed_product_instances (product_definition_id, id);
+CREATE INDEX shed_prod_inst_definition_account_idx ON shed_product_instances (product_definition_id, account_identifier);